@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Compares HTTP Basic and bearer token authentication on the same read endpoint.
+# Start the application with the authentication cache disabled so every Basic
+# request checks the password hash:
+#   java -jar target/todo-tasks-h2-*.jar --app.security.auth-cache.ttl=0s
+# Usage: scripts/token-auth-benchmark.sh [base-url] [requests] [username] [password]
+set -euo pipefail
+
+BASE_URL=${1:-http://localhost:8080}
+REQUESTS=${2:-200}
+USERNAME=${3:-benchmark@gmail.com}
+PASSWORD=${4:-benchmark-password}
+
+run() {
+    local label=$1
+    shift
+    curl -s -o /dev/null -w '%{http_code}' "$@" "$BASE_URL/api/tasks" | grep -q 200 || {
+        echo "$label request failed" >&2
+        exit 1
+    }
+    local start end
+    start=$(date +%s%N)
+    for ((i = 0; i < REQUESTS; i++)); do
+        curl -s -o /dev/null "$@" "$BASE_URL/api/tasks"
+    done
+    end=$(date +%s%N)
+    local total_ms=$(((end - start) / 1000000))
+    printf '%-6s %d requests in %d ms, %d.%02d ms per request\n' "$label" "$REQUESTS" "$total_ms" \
+        $((total_ms / REQUESTS)) $((total_ms * 100 / REQUESTS % 100))
+}
+
+# Registers the user on first use; an existing user answers 409 and is reused.
+curl -s -o /dev/null -X POST -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$USERNAME\",\"password\":\"$PASSWORD\"}" "$BASE_URL/api/users"
+
+TOKEN=$(curl -s -X POST -u "$USERNAME:$PASSWORD" "$BASE_URL/api/auth/token" \
+    | sed -n 's/.*"accessToken":"\([^"]*\)".*/\1/p')
+if [[ -z "$TOKEN" ]]; then
+    echo "Could not obtain an access token for $USERNAME" >&2
+    exit 1
+fi
+
+run basic -u "$USERNAME:$PASSWORD"
+run bearer -H "Authorization: Bearer $TOKEN"
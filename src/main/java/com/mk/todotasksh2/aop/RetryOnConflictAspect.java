@@ -0,0 +1,39 @@
+package com.mk.todotasksh2.aop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Aspect
+@Component
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryOnConflictAspect {
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        String methodName = joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= retryOnConflict.maxAttempts()) {
+                    log.error("Method {} still conflicts after {} attempts", methodName, attempt);
+                    throw ex;
+                }
+                log.warn("Method {} hit a concurrent modification, retrying (attempt {})", methodName, attempt);
+                long backoff = retryOnConflict.backoffMillis() * attempt;
+                if (backoff > 0) {
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package com.mk.todotasksh2.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import com.mk.todotasksh2.sequrity.AccessTokenService;
+import com.mk.todotasksh2.sequrity.AuthenticationCache;
+import com.mk.todotasksh2.sequrity.BearerTokenAuthenticationFilter;
+import com.mk.todotasksh2.sequrity.CachingAuthenticationProvider;
+import com.mk.todotasksh2.sequrity.CalibratedBCryptPasswordEncoder;
+import com.mk.todotasksh2.sequrity.PasswordHasher;
+import com.mk.todotasksh2.sequrity.PasswordHashingBusyFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Map;
+
 import static org.springframework.http.HttpMethod.*;
 
 @Component
@@ -24,13 +45,19 @@ public class SecurityConfig {
 
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
+    private final AccessTokenService accessTokenService;
+
+    private final MessageSource messageSource;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(POST, "/api/users/bulk").hasAuthority("ADMIN")
                         .requestMatchers(POST, "/api/users").permitAll()
-                        .requestMatchers(POST, "/api/tasks", "/api/tasks").hasAuthority("ADMIN")
+                        .requestMatchers(POST, "/api/tasks", "/api/tasks/bulk").hasAuthority("ADMIN")
                         .requestMatchers(PATCH, "/api/users/**").hasAuthority("ADMIN")
                         .requestMatchers(DELETE, "/api/users/**", "/api/tasks/**").hasAuthority("ADMIN")
                         .requestMatchers("/h2-console/**",
@@ -42,6 +69,9 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 .httpBasic(Customizer.withDefaults())
+                .addFilterBefore(new PasswordHashingBusyFilter(messageSource), BasicAuthenticationFilter.class)
+                .addFilterBefore(new BearerTokenAuthenticationFilter(accessTokenService, customAuthenticationEntryPoint),
+                        BasicAuthenticationFilter.class)
                 .exceptionHandling(exh -> {
                             exh.authenticationEntryPoint(customAuthenticationEntryPoint);
                             exh.accessDeniedHandler(customAccessDeniedHandler);
@@ -53,7 +83,32 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         UserDetailsPasswordService userDetailsPasswordService,
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
+    }
+
+    @Bean
+    public PasswordHasher passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.bcrypt.target-latency:250ms}") Duration targetLatency,
+            @Value("${app.security.bcrypt.min-strength:10}") int minStrength,
+            @Value("${app.security.bcrypt.max-strength:12}") int maxStrength,
+            @Value("${app.security.password-hashing.parallelism:0}") int parallelism,
+            @Value("${app.security.password-hashing.queue-size:64}") int queueSize,
+            @Value("${app.security.password-hashing.bulk-parallelism:0}") int bulkParallelism) {
+        CalibratedBCryptPasswordEncoder bcrypt =
+                CalibratedBCryptPasswordEncoder.calibrate(targetLatency, minStrength, maxStrength);
+        Gauge.builder("password.hashing.bcrypt.strength", bcrypt, CalibratedBCryptPasswordEncoder::getStrength)
+                .register(meterRegistry);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return new PasswordHasher(delegating, parallelism, queueSize, bulkParallelism, meterRegistry);
     }
 }
@@ -25,10 +25,16 @@ public class SwaggerConfig {
                 .info(new Info()
                         .title("ToDoTasks API").version(appVersion))
                 .addSecurityItem(new SecurityRequirement().addList("basicAuth"))
+                .addSecurityItem(new SecurityRequirement().addList("bearerAuth"))
                 .schemaRequirement("basicAuth",
                         new SecurityScheme()
                                 .name("basicAuth")
                                 .type(SecurityScheme.Type.HTTP)
-                                .scheme("basic"));
+                                .scheme("basic"))
+                .schemaRequirement("bearerAuth",
+                        new SecurityScheme()
+                                .name("bearerAuth")
+                                .type(SecurityScheme.Type.HTTP)
+                                .scheme("bearer"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.mk.todotasksh2.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.aop.LogExecutionTime;
+import com.mk.todotasksh2.dto.AccessTokenDto;
+import com.mk.todotasksh2.sequrity.AccessTokenService;
+import com.mk.todotasksh2.sequrity.AppUserDetails;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "basicAuth")
+public class AuthController {
+
+    private final AccessTokenService accessTokenService;
+
+    @PostMapping("/token")
+    @LogExecutionTime
+    @Operation(summary = "Exchange credentials for an access token.",
+            description = "Checks the Basic credentials once and returns a signed token " +
+                    "to be sent as 'Authorization: Bearer <token>' until it expires.",
+            tags = "post")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AccessTokenDto.class))})
+    @ApiResponse(responseCode = "401", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<AccessTokenDto> issueToken(@AuthenticationPrincipal AppUserDetails principal) {
+        String token = accessTokenService.issue(principal.id(), principal.username(), principal.role());
+        return ResponseEntity.ok(new AccessTokenDto(token, "Bearer", accessTokenService.getTtl().toSeconds()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.mk.todotasksh2.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class BulkRequestLimit {
+
+    private final int maxItems;
+
+    public BulkRequestLimit(@Value("${app.bulk.max-items:1000}") int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public <T> List<T> check(List<T> items) {
+        if (items.size() > maxItems) {
+            log.error("Bulk request with {} items exceeds the limit of {}", items.size(), maxItems);
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "error.Bulk.TooLarge.message");
+        }
+        return items;
+    }
+}
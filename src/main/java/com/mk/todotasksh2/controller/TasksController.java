@@ -7,23 +7,54 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.mk.todotasksh2.aop.LogExecutionTime;
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.CursorPage;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
 import com.mk.todotasksh2.dto.TaskCreateDto;
+import com.mk.todotasksh2.dto.TaskCursorOrder;
+import com.mk.todotasksh2.dto.TaskDeltaDto;
 import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFileFormat;
+import com.mk.todotasksh2.dto.TaskImportResultDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.dto.TaskStateChangeDto;
+import com.mk.todotasksh2.dto.TaskStateChangeResultDto;
+import com.mk.todotasksh2.dto.TaskStatsDto;
 import com.mk.todotasksh2.dto.TaskUpdateDto;
 import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.service.TaskChangeFeed;
+import com.mk.todotasksh2.service.TaskExporter;
+import com.mk.todotasksh2.service.TaskImporter;
 import com.mk.todotasksh2.service.TaskService;
+import com.mk.todotasksh2.service.TaskStatistics;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
@@ -34,19 +65,166 @@ import java.util.List;
 public class TasksController {
     private final TaskService taskService;
 
+    private final TaskChangeFeed taskChangeFeed;
+
+    private final TaskStatistics taskStatistics;
+
+    private final TaskExporter taskExporter;
+
+    private final TaskImporter taskImporter;
+
+    private final BulkRequestLimit bulkRequestLimit;
+
+    @Value("${app.tasks.export.timeout:1h}")
+    private Duration exportTimeout;
+
     @GetMapping
     @Timed(value = "api.response.time", description = "Час відповіді findAllTasks")
     @Counted(value = "api.calls.count", description = "Кількість викликів findAllTasks")
     @LogExecutionTime
     @Operation(summary = "Get list of tasks.",
-            description = "Return list of all tasks.",
+            description = "Return list of tasks, optionally filtered by state, performer, " +
+                    "deadline range or missing performer.",
             tags = "get")
     @ApiResponse(responseCode = "200",
             content = {@Content(mediaType = "application/json", schema = @Schema(implementation = UserDto.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<List<TaskDto>> findAllTasks(@ParameterObject TaskFilter filter,
+                                                      @ParameterObject Pageable pageable,
+                                                      WebRequest request) {
+        String eTag = taskService.findTasksETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(taskService.findAllTasks(filter, pageable));
+    }
+
+    @GetMapping(params = "after")
+    @LogExecutionTime
+    @Operation(summary = "Get page of tasks by cursor.",
+            description = "Return tasks following the cursor passed in the 'after' parameter " +
+                    "and the cursor of the next page. An empty cursor returns the first page. " +
+                    "Ordered by deadline, tasks without a deadline follow the dated ones by id.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<CursorPage<TaskDto>> findTasksAfter(
+            @RequestParam("after") String after,
+            @RequestParam(name = "size", defaultValue = "20") @Positive @Max(1000) int size,
+            @RequestParam(name = "order", defaultValue = "ID") TaskCursorOrder order,
+            WebRequest request) {
+        String eTag = taskService.findTasksETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(taskService.findTasksAfter(after, size, order));
+    }
+
+    @GetMapping("/search")
+    @LogExecutionTime
+    @Operation(summary = "Search tasks by description.",
+            description = "Return tasks whose description contains all words of the query, best matches first. " +
+                    "A word ending with '*' matches any word starting with it.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = TaskDto.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<List<TaskDto>> searchTasks(
+            @RequestParam("q") @NotBlank @Size(max = 200) String query,
+            @RequestParam(name = "page", defaultValue = "0") @Min(0) @Max(1000) int page,
+            @RequestParam(name = "size", defaultValue = "20") @Positive @Max(100) int size) {
+        return ResponseEntity.ok(taskService.searchTasks(query, page, size));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Operation(summary = "Export all tasks.",
+            description = "Stream all tasks ordered by id as newline-delimited JSON or as CSV with a header row.",
+            tags = "get")
+    @ApiResponse(responseCode = "200", content = {
+            @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = TaskDto.class)),
+            @Content(mediaType = "text/csv")})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "403", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public WebAsyncTask<Void> exportTasks(
+            @RequestParam(name = "format", defaultValue = "NDJSON") TaskFileFormat format,
+            HttpServletResponse response) {
+        response.setContentType(format.mediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("tasks." + format.extension())
+                .build()
+                .toString());
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            taskExporter.export(format, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @PostMapping("/import")
+    @LogExecutionTime
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Operation(summary = "Import tasks from a file.",
+            description = "Read tasks from newline-delimited JSON objects or from CSV with a header row, " +
+                    "with description, deadline and optional username of the performer. Valid records are " +
+                    "committed in chunks; the response holds the number of imported and rejected records " +
+                    "and the line numbers of rejected ones.",
+            tags = "post")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = TaskImportResultDto.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "403", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<TaskImportResultDto> importTasks(
+            @RequestParam(name = "format", defaultValue = "NDJSON") TaskFileFormat format,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(taskImporter.importTasks(format, body));
+    }
+
+    @GetMapping("/stats")
+    @LogExecutionTime
+    @Operation(summary = "Get task statistics.",
+            description = "Return the number of tasks in total, per state, per performer, unassigned and overdue.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = TaskStatsDto.class))})
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<TaskStatsDto> getTaskStats() {
+        return ResponseEntity.ok(taskStatistics.getStats());
+    }
+
+    @GetMapping("/delta")
+    @LogExecutionTime
+    @Operation(summary = "Get tasks changed since a revision.",
+            description = "Return tasks changed and ids of tasks deleted after the revision passed in the 'since' " +
+                    "parameter, and the revision to pass next time. Omit 'since' to get all tasks.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = TaskDeltaDto.class))})
     @ApiResponse(responseCode = "400", content = @Content())
     @ApiResponse(responseCode = "500", content = @Content())
-    public ResponseEntity<List<TaskDto>> findAllTasks(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(taskService.findAllTasks(pageable));
+    public ResponseEntity<TaskDeltaDto> findTasksDelta(
+            @RequestParam(name = "since", defaultValue = "-1") @Min(-1) long since) {
+        return ResponseEntity.ok(taskService.findTasksChangedSince(since));
+    }
+
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to task changes.",
+            description = "Stream task changes as server-sent events. Pass the Last-Event-ID header to resume " +
+                    "after a reconnect. A 'resync' event means missed changes are gone and tasks must be reloaded.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "text/event-stream", schema = @Schema(implementation = TaskChangeEvent.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public SseEmitter streamTaskChanges(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return taskChangeFeed.subscribe(lastEventId);
     }
 
     @GetMapping("/{id}")
@@ -56,11 +234,16 @@ public class TasksController {
             tags = "get")
     @ApiResponse(responseCode = "200",
             content = {@Content(mediaType = "application/json", schema = @Schema(implementation = UserDto.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
     @ApiResponse(responseCode = "400", content = @Content())
     @ApiResponse(responseCode = "404", content = @Content())
     @ApiResponse(responseCode = "500", content = @Content())
-    public ResponseEntity<TaskDto> findTaskById(@PathVariable("id") long id) {
-        return ResponseEntity.ok(taskService.findTaskById(id));
+    public ResponseEntity<TaskDto> findTaskById(@PathVariable("id") long id, WebRequest request) {
+        String eTag = taskService.findTaskETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(taskService.findTaskById(id));
     }
 
     @GetMapping("/{id}/users")
@@ -93,6 +276,23 @@ public class TasksController {
 
     }
 
+    @PostMapping("/bulk")
+    @LogExecutionTime
+    @Operation(summary = "Create many tasks at once(for admin only).",
+            description = "Return ids of created tasks and validation errors of rejected ones. " +
+                    "Invalid items do not prevent the valid ones from being created. " +
+                    "Requests above app.bulk.max-items items are rejected with 413.",
+            tags = "post")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BulkCreateResultDto.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "403", content = @Content())
+    @ApiResponse(responseCode = "413", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<BulkCreateResultDto> createTasks(@RequestBody List<TaskCreateDto> taskCreateDtos) {
+        return ResponseEntity.ok(taskService.createTasks(bulkRequestLimit.check(taskCreateDtos)));
+    }
+
     @PatchMapping("/{id}")
     @LogExecutionTime
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -125,6 +325,22 @@ public class TasksController {
         return ResponseEntity.ok(taskService.changeState(id, state));
     }
 
+    @PatchMapping("/state")
+    @LogExecutionTime
+    @Operation(summary = "Change state of many tasks at once.",
+            description = "Returns an outcome for every requested task in the request order. " +
+                    "Rejected transitions do not prevent the valid ones from being applied. " +
+                    "Requests above app.bulk.max-items items are rejected with 413.",
+            tags = "path")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = TaskStateChangeResultDto.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "413", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<List<TaskStateChangeResultDto>> editStates(@RequestBody List<TaskStateChangeDto> changes) {
+        return ResponseEntity.ok(taskService.changeStates(bulkRequestLimit.check(changes)));
+    }
+
 
     @PatchMapping("/{taskId}/users/{userId}")
     @LogExecutionTime
@@ -6,19 +6,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.mk.todotasksh2.aop.LogExecutionTime;
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.CursorPage;
 import com.mk.todotasksh2.dto.UserCreateDto;
 import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.dto.UserTasksDto;
 import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.service.UserProvisioner;
 import com.mk.todotasksh2.service.UserService;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -31,6 +37,10 @@ public class UsersController {
 
     private final UserService userService;
 
+    private final UserProvisioner userProvisioner;
+
+    private final BulkRequestLimit bulkRequestLimit;
+
     @GetMapping
     @LogExecutionTime
     @Operation(summary = "Get list of users.",
@@ -38,11 +48,39 @@ public class UsersController {
             tags = "get")
     @ApiResponse(responseCode = "200",
             content = {@Content(mediaType = "application/json", schema = @Schema(implementation = UserDto.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "403", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<List<UserDto>> findAllUsers(@ParameterObject Pageable pageable, WebRequest request) {
+        String eTag = userService.findUsersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.findAllUsers(pageable));
+    }
+
+    @GetMapping(params = "after")
+    @LogExecutionTime
+    @Operation(summary = "Get page of users by cursor.",
+            description = "Return users following the cursor passed in the 'after' parameter " +
+                    "and the cursor of the next page. An empty cursor returns the first page.",
+            tags = "get")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
     @ApiResponse(responseCode = "400", content = @Content())
     @ApiResponse(responseCode = "403", content = @Content())
     @ApiResponse(responseCode = "500", content = @Content())
-    public ResponseEntity<List<UserDto>> findAllUsers(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(userService.findAllUsers(pageable));
+    public ResponseEntity<CursorPage<UserDto>> findUsersAfter(
+            @RequestParam("after") String after,
+            @RequestParam(name = "size", defaultValue = "20") @Positive @Max(1000) int size,
+            WebRequest request) {
+        String eTag = userService.findUsersETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.findUsersAfter(after, size));
     }
 
     @GetMapping("/{id}")
@@ -52,11 +90,16 @@ public class UsersController {
             tags = "get")
     @ApiResponse(responseCode = "200",
             content = {@Content(mediaType = "application/json", schema = @Schema(implementation = UserDto.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
     @ApiResponse(responseCode = "400", content = @Content())
     @ApiResponse(responseCode = "404", content = @Content())
     @ApiResponse(responseCode = "500", content = @Content())
-    public ResponseEntity<UserDto> findUserById(@PathVariable("id") long id) {
-        return ResponseEntity.ok(userService.findUserById(id));
+    public ResponseEntity<UserDto> findUserById(@PathVariable("id") long id, WebRequest request) {
+        String eTag = userService.findUserETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.findUserById(id));
     }
 
     @GetMapping("/{id}/tasks")
@@ -66,11 +109,16 @@ public class UsersController {
             tags = "get")
     @ApiResponse(responseCode = "200",
             content = {@Content(mediaType = "application/json", schema = @Schema(implementation = UserDto.class))})
+    @ApiResponse(responseCode = "304", content = @Content())
     @ApiResponse(responseCode = "400", content = @Content())
     @ApiResponse(responseCode = "404", content = @Content())
     @ApiResponse(responseCode = "500", content = @Content())
-    public ResponseEntity<List<UserTasksDto>> findUserTasks(@PathVariable("id") long id) {
-             return ResponseEntity.ok(userService.findUserTasks(id));
+    public ResponseEntity<List<UserTasksDto>> findUserTasks(@PathVariable("id") long id, WebRequest request) {
+        String eTag = userService.findUserTasksETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.findUserTasks(id));
     }
 
     @PostMapping
@@ -87,6 +135,23 @@ public class UsersController {
         return new ResponseEntity<>(userService.createUser(userCreateDto), HttpStatus.CREATED);
     }
 
+    @PostMapping("/bulk")
+    @LogExecutionTime
+    @Operation(summary = "Create users in bulk (for admin only).",
+            description = "Return ids of created users and errors of rejected ones by their index in the request. " +
+                    "Invalid items and taken usernames do not prevent the other users from being created. " +
+                    "Requests above app.bulk.max-items items are rejected with 413.",
+            tags = "post")
+    @ApiResponse(responseCode = "200",
+            content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BulkCreateResultDto.class))})
+    @ApiResponse(responseCode = "400", content = @Content())
+    @ApiResponse(responseCode = "403", content = @Content())
+    @ApiResponse(responseCode = "413", content = @Content())
+    @ApiResponse(responseCode = "500", content = @Content())
+    public ResponseEntity<BulkCreateResultDto> createUsers(@RequestBody List<UserCreateDto> userCreateDtos) {
+        return ResponseEntity.ok(userProvisioner.createUsers(bulkRequestLimit.check(userCreateDtos)));
+    }
+
     @PatchMapping("/{id}")
     @LogExecutionTime
     @Operation(summary = "Change user role(for admin only).",
@@ -0,0 +1,4 @@
+package com.mk.todotasksh2.dto;
+
+public record AccessTokenDto(String accessToken, String tokenType, long expiresIn) {
+}
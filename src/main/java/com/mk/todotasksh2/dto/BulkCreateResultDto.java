@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+import java.util.List;
+
+public record BulkCreateResultDto(List<Long> createdIds, List<BulkItemErrorDto> errors) {
+}
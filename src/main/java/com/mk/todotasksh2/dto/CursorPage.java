@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> content, String nextCursor) {
+}
@@ -0,0 +1,11 @@
+package com.mk.todotasksh2.dto;
+
+public enum StateChangeOutcome {
+    UPDATED,
+    UNCHANGED,
+    NOT_FOUND,
+    FORBIDDEN,
+    INVALID_TRANSITION,
+    DUPLICATE,
+    CONFLICT
+}
@@ -0,0 +1,58 @@
+package com.mk.todotasksh2.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mk.todotasksh2.model.TaskState;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * A committed task change. {@code previous} holds the task as it was before the change and
+ * {@code releasedByState} the states of the tasks a removed user held; both stay on the server.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskChangeEvent(TaskChangeType type,
+                              Long taskId,
+                              TaskState state,
+                              Long userId,
+                              LocalDate deadline,
+                              String description,
+                              @JsonIgnore TaskStatsView previous,
+                              @JsonIgnore Map<TaskState, Long> releasedByState) {
+
+    public static TaskChangeEvent created(long taskId, TaskState state, LocalDate deadline, String description) {
+        return new TaskChangeEvent(TaskChangeType.CREATED, taskId, state, null, deadline, description, null, null);
+    }
+
+    public static TaskChangeEvent updated(long taskId, TaskState state, LocalDate deadline, String description,
+                                          TaskStatsView previous) {
+        return new TaskChangeEvent(TaskChangeType.UPDATED, taskId, state, null, deadline, description, previous,
+                null);
+    }
+
+    public static TaskChangeEvent stateChanged(long taskId, TaskState state, TaskStatsView previous) {
+        return new TaskChangeEvent(TaskChangeType.STATE_CHANGED, taskId, state, null, null, null, previous, null);
+    }
+
+    public static TaskChangeEvent assigned(long taskId, long userId, TaskStatsView previous) {
+        return new TaskChangeEvent(TaskChangeType.ASSIGNED, taskId, null, userId, null, null, previous, null);
+    }
+
+    public static TaskChangeEvent unassigned(long taskId, TaskStatsView previous) {
+        return new TaskChangeEvent(TaskChangeType.UNASSIGNED, taskId, null, null, null, null, previous, null);
+    }
+
+    public static TaskChangeEvent deleted(long taskId, TaskStatsView previous) {
+        return new TaskChangeEvent(TaskChangeType.DELETED, taskId, null, null, null, null, previous, null);
+    }
+
+    public static TaskChangeEvent overdue(long taskId, LocalDate deadline) {
+        return new TaskChangeEvent(TaskChangeType.OVERDUE, taskId, null, null, deadline, null, null, null);
+    }
+
+    public static TaskChangeEvent userRemoved(long userId, Map<TaskState, Long> releasedByState) {
+        return new TaskChangeEvent(TaskChangeType.USER_REMOVED, null, null, userId, null, null, null,
+                releasedByState);
+    }
+}
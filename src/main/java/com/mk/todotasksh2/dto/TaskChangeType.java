@@ -0,0 +1,12 @@
+package com.mk.todotasksh2.dto;
+
+public enum TaskChangeType {
+    CREATED,
+    UPDATED,
+    STATE_CHANGED,
+    ASSIGNED,
+    UNASSIGNED,
+    DELETED,
+    OVERDUE,
+    USER_REMOVED
+}
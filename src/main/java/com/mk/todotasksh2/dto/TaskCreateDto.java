@@ -3,11 +3,13 @@ package com.mk.todotasksh2.dto;
 import jakarta.validation.constraints.FutureOrPresent;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.time.LocalDate;
 
 public record TaskCreateDto(
         @NotBlank
+        @Size(max = 256)
         String description,
         @NotNull
         @FutureOrPresent
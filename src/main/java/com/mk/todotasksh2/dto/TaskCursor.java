@@ -0,0 +1,30 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.util.CursorCodec;
+
+import java.time.LocalDate;
+
+public record TaskCursor(TaskCursorOrder order, LocalDate deadline, long id) {
+
+    public static TaskCursor first(TaskCursorOrder order) {
+        return new TaskCursor(order, null, 0L);
+    }
+
+    public static TaskCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, keys -> {
+            TaskCursorOrder order = TaskCursorOrder.valueOf(keys[0]);
+            return switch (order) {
+                case ID -> new TaskCursor(order, null, Long.parseLong(keys[1]));
+                case DEADLINE -> new TaskCursor(order, keys[1].isEmpty() ? null : LocalDate.parse(keys[1]),
+                        Long.parseLong(keys[2]));
+            };
+        });
+    }
+
+    public String encode() {
+        return switch (order) {
+            case ID -> CursorCodec.encode(order, id);
+            case DEADLINE -> CursorCodec.encode(order, deadline == null ? "" : deadline, id);
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+public enum TaskCursorOrder {
+    ID,
+    DEADLINE
+}
@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+import java.time.LocalDate;
+
+public record TaskDeadlineView(long id, LocalDate deadline) {
+}
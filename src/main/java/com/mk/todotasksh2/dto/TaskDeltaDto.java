@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+import java.util.List;
+
+public record TaskDeltaDto(long revision, List<TaskDto> changed, List<Long> deleted) {
+}
@@ -2,9 +2,15 @@ package com.mk.todotasksh2.dto;
 
 
 
+import com.mk.todotasksh2.model.Role;
 import com.mk.todotasksh2.model.TaskState;
 
 import java.time.LocalDate;
 
 public record TaskDto(long id, String description, LocalDate deadline, TaskState state, UserDto user) {
+
+    public TaskDto(long id, String description, LocalDate deadline, TaskState state,
+                   Long userId, String username, Role role) {
+        this(id, description, deadline, state, userId == null ? null : new UserDto(userId, username, role));
+    }
 }
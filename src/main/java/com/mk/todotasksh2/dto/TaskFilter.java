@@ -0,0 +1,28 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.model.TaskState;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+public record TaskFilter(TaskState state,
+                         Long userId,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadlineFrom,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadlineTo,
+                         Boolean unassigned) {
+
+    public static final TaskFilter NONE = new TaskFilter(null, null, null, null, false);
+
+    public boolean isUnassignedOnly() {
+        return Boolean.TRUE.equals(unassigned);
+    }
+
+    public boolean isEmpty() {
+        return state == null && userId == null && deadlineFrom == null && deadlineTo == null && !isUnassignedOnly();
+    }
+
+    public boolean isContradictory() {
+        return isUnassignedOnly() && userId != null
+                || deadlineFrom != null && deadlineTo != null && deadlineFrom.isAfter(deadlineTo);
+    }
+}
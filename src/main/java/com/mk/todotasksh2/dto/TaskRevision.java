@@ -0,0 +1,8 @@
+package com.mk.todotasksh2.dto;
+
+public record TaskRevision(long version, Long userId, Long userVersion) {
+
+    public String eTag() {
+        return userId == null ? "task-" + version : "task-" + version + "-user-" + userId + "-" + userVersion;
+    }
+}
@@ -0,0 +1,6 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.model.TaskState;
+
+public record TaskStateChangeDto(long id, TaskState state) {
+}
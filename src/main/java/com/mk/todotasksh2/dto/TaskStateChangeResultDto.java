@@ -0,0 +1,15 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.model.TaskState;
+
+import java.util.Set;
+
+public record TaskStateChangeResultDto(long id,
+                                       TaskState state,
+                                       StateChangeOutcome outcome,
+                                       Set<TaskState> availableStates) {
+
+    public TaskStateChangeResultDto(long id, TaskState state, StateChangeOutcome outcome) {
+        this(id, state, outcome, null);
+    }
+}
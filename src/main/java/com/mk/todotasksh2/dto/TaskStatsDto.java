@@ -0,0 +1,12 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.model.TaskState;
+
+import java.util.Map;
+
+public record TaskStatsDto(long total,
+                           Map<TaskState, Long> byState,
+                           Map<Long, Long> byUser,
+                           long unassigned,
+                           long overdue) {
+}
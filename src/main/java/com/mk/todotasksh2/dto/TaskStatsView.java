@@ -0,0 +1,8 @@
+package com.mk.todotasksh2.dto;
+
+import com.mk.todotasksh2.model.TaskState;
+
+import java.time.LocalDate;
+
+public record TaskStatsView(long id, TaskState state, Long userId, LocalDate deadline) {
+}
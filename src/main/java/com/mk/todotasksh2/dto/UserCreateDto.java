@@ -2,10 +2,12 @@ package com.mk.todotasksh2.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 public record UserCreateDto(
         @Email
         @NotBlank
+        @Size(max = 64)
         String username,
         @NotBlank
         String password) {
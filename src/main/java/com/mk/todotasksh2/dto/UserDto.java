@@ -1,4 +1,10 @@
 package com.mk.todotasksh2.dto;
 
+import com.mk.todotasksh2.model.Role;
+
 public record UserDto (long id, String username, String role){
+
+    public UserDto(long id, String username, Role role) {
+        this(id, username, role == null ? null : role.name());
+    }
 }
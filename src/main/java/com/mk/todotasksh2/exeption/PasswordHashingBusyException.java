@@ -0,0 +1,21 @@
+package com.mk.todotasksh2.exeption;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class PasswordHashingBusyException extends ResponseStatusException {
+
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    public PasswordHashingBusyException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "error.PasswordHashingBusy.message");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return headers;
+    }
+}
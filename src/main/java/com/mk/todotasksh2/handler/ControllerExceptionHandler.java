@@ -7,6 +7,7 @@ import com.mk.todotasksh2.exeption.NotChangeStatusException;
 import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -81,7 +82,7 @@ public class ControllerExceptionHandler {
 
         log.error("ResponseStatusException occurred: {}", apiError, ex);
 
-        return new ResponseEntity<>(apiError, ex.getStatusCode());
+        return new ResponseEntity<>(apiError, ex.getHeaders(), ex.getStatusCode());
     }
 
     @ExceptionHandler(AuthorizationDeniedException.class)
@@ -113,6 +114,14 @@ public class ControllerExceptionHandler {
                 .body(createApiError(request, HttpStatus.BAD_REQUEST, List.of(errorMessage)));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handlerOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                             WebRequest request) {
+        log.error("OptimisticLockingFailureException occurred", ex);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(createApiError(request, HttpStatus.CONFLICT, List.of(createMessage("error.Conflict.message"))));
+    }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> globalExceptionHandler(Exception ex, WebRequest request) {
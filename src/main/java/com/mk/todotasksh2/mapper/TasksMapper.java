@@ -23,11 +23,15 @@ public interface TasksMapper {
     List<UserTasksDto> toListUserTasksDto(List<Task> tasks);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     @Mapping(target = "state", expression = "java(getState())")
     @Mapping(target = "deadline", source = "taskCreateDto.deadline")
     Task taskCreateDtoToTask(TaskCreateDto taskCreateDto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     void updateTaskFromDto(TaskUpdateDto taskUpdateDto, @MappingTarget Task taskToBeUpdated);
 
     default TaskState getState() {
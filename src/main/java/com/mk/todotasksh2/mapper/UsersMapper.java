@@ -22,6 +22,7 @@ public interface UsersMapper {
     UserDto toUserDto(User user);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "username", source = "userCreateDto.username")
     @Mapping(target = "role", expression = "java(Role.USER)")
     @Mapping(target = "password", qualifiedByName = {"UserMapperUtil", "getEncodePassword"})
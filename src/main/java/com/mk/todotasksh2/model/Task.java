@@ -2,11 +2,15 @@ package com.mk.todotasksh2.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.mk.todotasksh2.util.TaskStateConverter;
 
 import java.time.LocalDate;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -15,10 +19,12 @@ import java.time.LocalDate;
 @EqualsAndHashCode(of ="id")
 @Builder
 @Table(name = "tasks")
+@NamedEntityGraph(name = "Task.user", attributeNodes = @NamedAttributeNode("user"))
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -31,7 +37,15 @@ public class Task {
     @Convert(converter = TaskStateConverter.class)
     private TaskState state;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
+
+    @Version
+    @Column
+    private Long version;
+
+    @Column
+    private long revision;
 }
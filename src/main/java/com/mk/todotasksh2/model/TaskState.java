@@ -5,6 +5,7 @@ import com.mk.todotasksh2.exeption.NotChangeStatusException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -48,6 +49,38 @@ public enum TaskState {
         throw new NotChangeStatusException("error.tasks.State.message", state.availableStates);
     }
 
+    public static Set<TaskState> predecessorsOf(TaskState newState) {
+        Set<TaskState> predecessors = EnumSet.noneOf(TaskState.class);
+        for (TaskState state : values()) {
+            if (state != newState && state.availableStates.contains(newState)) {
+                predecessors.add(state);
+            }
+        }
+        return predecessors;
+    }
+
+    public static Set<TaskState> finalStates() {
+        Set<TaskState> finalStates = EnumSet.noneOf(TaskState.class);
+        for (TaskState state : values()) {
+            if (state.isFinal()) {
+                finalStates.add(state);
+            }
+        }
+        return finalStates;
+    }
+
+    public boolean isFinal() {
+        return availableStates.isEmpty();
+    }
+
+    public boolean canChangeTo(TaskState newState) {
+        return availableStates.contains(newState);
+    }
+
+    public Set<TaskState> getAvailableStates() {
+        return Collections.unmodifiableSet(availableStates);
+    }
+
     public String getDbData() {
         return dbData;
     }
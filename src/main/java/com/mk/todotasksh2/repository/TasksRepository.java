@@ -1,10 +1,187 @@
 package com.mk.todotasksh2.repository;
 
+import com.mk.todotasksh2.dto.TaskCountView;
+import com.mk.todotasksh2.dto.TaskDeadlineView;
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskRevision;
+import com.mk.todotasksh2.dto.TaskStateView;
+import com.mk.todotasksh2.dto.TaskStatsView;
+import com.mk.todotasksh2.dto.TaskTextView;
+import com.mk.todotasksh2.dto.UserDto;
+import com.mk.todotasksh2.dto.UserTasksDto;
 import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.TaskState;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TasksRepository extends JpaRepository<Task, Long> {
+public interface TasksRepository extends JpaRepository<Task, Long>, TasksRepositoryCustom {
+
+    String SELECT_TASK_DTO = "select new com.mk.todotasksh2.dto.TaskDto(" +
+            "t.id, t.description, t.deadline, t.state, u.id, u.username, u.role) " +
+            "from Task t left join t.user u ";
+
+    @Override
+    @EntityGraph("Task.user")
+    Optional<Task> findById(Long id);
+
+    @Query(SELECT_TASK_DTO)
+    List<TaskDto> findAllTaskDtos(Pageable pageable);
+
+    @Query(SELECT_TASK_DTO + "where t.id = :id")
+    Optional<TaskDto> findTaskDtoById(@Param("id") long id);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskRevision(t.version, u.id, u.version) "
+            + "from Task t left join t.user u where t.id = :id")
+    Optional<TaskRevision> findRevisionById(@Param("id") long id);
+
+    @Query(SELECT_TASK_DTO + "where t.revision > :since and t.revision <= :until order by t.revision, t.id")
+    List<TaskDto> findTaskDtosByRevisionBetween(@Param("since") long since, @Param("until") long until);
+
+    @Query(value = "select task_id from task_tombstones where revision > :since and revision <= :until " +
+            "order by revision, task_id", nativeQuery = true)
+    List<Long> findTombstonesByRevisionBetween(@Param("since") long since, @Param("until") long until);
+
+    @Query(value = "select greatest(coalesce(max(t.revision), 0), " +
+            "(select coalesce(max(d.revision), 0) from task_tombstones d)) from tasks t", nativeQuery = true)
+    long findLastRevision();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+    @Query(SELECT_TASK_DTO + "order by t.id")
+    Stream<TaskDto> streamAllTaskDtos();
+
+    @Query(SELECT_TASK_DTO + "where t.id in :ids")
+    List<TaskDto> findTaskDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskTextView(t.id, t.description) from Task t " +
+            "where t.id > :afterId order by t.id")
+    List<TaskTextView> findTextsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(SELECT_TASK_DTO + "where t.id > :afterId order by t.id")
+    Slice<TaskDto> findSliceByIdAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(SELECT_TASK_DTO + "where t.deadline is not null order by t.deadline, t.id")
+    Slice<TaskDto> findSliceOrderByDeadline(Pageable pageable);
+
+    @Query(SELECT_TASK_DTO +
+            "where t.deadline > :deadline or (t.deadline = :deadline and t.id > :afterId) " +
+            "order by t.deadline, t.id")
+    Slice<TaskDto> findSliceByDeadlineAfter(@Param("deadline") LocalDate deadline,
+                                            @Param("afterId") long afterId,
+                                            Pageable pageable);
+
+    @Query(SELECT_TASK_DTO + "where t.deadline is null and t.id > :afterId order by t.id")
+    Slice<TaskDto> findSliceByNullDeadlineAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select new com.mk.todotasksh2.dto.UserDto(u.id, u.username, u.role) " +
+            "from Task t join t.user u where t.id = :id")
+    Optional<UserDto> findPerformerById(@Param("id") long id);
+
+    @Query("select new com.mk.todotasksh2.dto.UserTasksDto(t.id, t.description, t.deadline, t.state, u.username) " +
+            "from Task t join t.user u where u.id = :userId")
+    List<UserTasksDto> findUserTasksDtosByUserId(@Param("userId") long userId);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskCountView(t.state, count(t)) from Task t group by t.state")
+    List<TaskCountView<TaskState>> countGroupedByState();
+
+    @Query("select new com.mk.todotasksh2.dto.TaskCountView(t.state, count(t)) from Task t " +
+            "where t.user.id = :userId group by t.state")
+    List<TaskCountView<TaskState>> countGroupedByStateOfUser(@Param("userId") long userId);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskCountView(u.id, count(t)) " +
+            "from Task t left join t.user u group by u.id")
+    List<TaskCountView<Long>> countGroupedByUser();
+
+    @Query("select new com.mk.todotasksh2.dto.TaskCountView(t.deadline, count(t)) from Task t " +
+            "where t.deadline is not null and t.state not in :finalStates group by t.deadline")
+    List<TaskCountView<LocalDate>> countOpenGroupedByDeadline(
+            @Param("finalStates") Collection<TaskState> finalStates);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskStatsView(t.id, t.state, u.id, t.deadline) " +
+            "from Task t left join t.user u where t.id in :ids")
+    List<TaskStatsView> findStatsViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskStatsView(t.id, t.state, u.id, t.deadline) " +
+            "from Task t left join t.user u where t.id = :id")
+    Optional<TaskStatsView> findStatsViewById(@Param("id") long id);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskDeadlineView(t.id, t.deadline) from Task t " +
+            "where (t.deadline > :deadline or (t.deadline = :deadline and t.id > :afterId)) " +
+            "and t.deadline <= :until and t.state not in :finalStates " +
+            "order by t.deadline, t.id")
+    List<TaskDeadlineView> findDeadlinesAfter(@Param("deadline") LocalDate deadline,
+                                              @Param("afterId") long afterId,
+                                              @Param("until") LocalDate until,
+                                              @Param("finalStates") Collection<TaskState> finalStates,
+                                              Pageable pageable);
+
+    @Query(value = "select last_run from job_runs where name = :name", nativeQuery = true)
+    Optional<LocalDate> findLastJobRun(@Param("name") String name);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_runs"))
+    @Query(value = "merge into job_runs (name, last_run) key (name) values (:name, :lastRun)", nativeQuery = true)
+    void saveLastJobRun(@Param("name") String name, @Param("lastRun") LocalDate lastRun);
+
+    @Query("select new com.mk.todotasksh2.dto.TaskStateView(t.id, t.state) from Task t where t.id in :ids")
+    List<TaskStateView> findStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Task t set t.state = :newState, t.version = t.version + 1, t.revision = :revision " +
+            "where t.id in :ids and t.state = :currentState")
+    int updateStateByIdIn(@Param("ids") Collection<Long> ids,
+                          @Param("currentState") TaskState currentState,
+                          @Param("newState") TaskState newState,
+                          @Param("revision") long revision);
+
+    @Modifying
+    @Query("update Task t set t.user = null, " +
+            "t.state = case when t.state in :keptStates then t.state else :newState end, " +
+            "t.version = t.version + 1, t.revision = :revision " +
+            "where t.user.id = :userId")
+    int releaseTasksOfUser(@Param("userId") long userId,
+                           @Param("keptStates") Collection<TaskState> keptStates,
+                           @Param("newState") TaskState newState,
+                           @Param("revision") long revision);
+
+    @Modifying
+    @Query("delete from Task t where t.id = :id")
+    int deleteTaskById(@Param("id") long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "task_tombstones"))
+    @Query(value = "merge into task_tombstones (task_id, revision) key (task_id) values (:id, :revision)",
+            nativeQuery = true)
+    void saveTombstone(@Param("id") long id, @Param("revision") long revision);
+
+    @Query("select t.state from Task t where t.id = :id")
+    Optional<TaskState> findStateById(@Param("id") long id);
 
+    @Modifying
+    @Query("update Task t set t.state = :newState, t.version = t.version + 1, t.revision = :revision " +
+            "where t.id = :id and t.state in :currentStates")
+    int updateStateById(@Param("id") long id,
+                        @Param("currentStates") Collection<TaskState> currentStates,
+                        @Param("newState") TaskState newState,
+                        @Param("revision") long revision);
 }
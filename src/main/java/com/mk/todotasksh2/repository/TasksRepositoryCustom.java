@@ -0,0 +1,12 @@
+package com.mk.todotasksh2.repository;
+
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface TasksRepositoryCustom {
+
+    List<TaskDto> findTaskDtos(TaskFilter filter, Pageable pageable);
+}
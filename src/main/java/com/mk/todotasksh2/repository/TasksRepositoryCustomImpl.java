@@ -0,0 +1,64 @@
+package com.mk.todotasksh2.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TasksRepositoryCustomImpl implements TasksRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<TaskDto> findTaskDtos(TaskFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskDto> query = cb.createQuery(TaskDto.class);
+        Root<Task> task = query.from(Task.class);
+        Join<Task, User> user = task.join("user", JoinType.LEFT);
+        query.select(cb.construct(TaskDto.class,
+                task.get("id"), task.get("description"), task.get("deadline"), task.get("state"),
+                user.get("id"), user.get("username"), user.get("role")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.state() != null) {
+            predicates.add(cb.equal(task.get("state"), filter.state()));
+        }
+        if (filter.userId() != null) {
+            predicates.add(cb.equal(task.get("user").get("id"), filter.userId()));
+        }
+        if (filter.isUnassignedOnly()) {
+            predicates.add(cb.isNull(task.get("user")));
+        }
+        if (filter.deadlineFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(task.<LocalDate>get("deadline"), filter.deadlineFrom()));
+        }
+        if (filter.deadlineTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(task.<LocalDate>get("deadline"), filter.deadlineTo()));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), task, cb));
+
+        TypedQuery<TaskDto> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
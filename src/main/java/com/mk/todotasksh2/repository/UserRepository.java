@@ -1,13 +1,60 @@
 package com.mk.todotasksh2.repository;
 
+import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.sequrity.AppUserDetails;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    String USERNAME_CACHE_REGION = "users-by-username";
+
+    String SELECT_USER_DTO = "select new com.mk.todotasksh2.dto.UserDto(u.id, u.username, u.role) from User u ";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = USERNAME_CACHE_REGION)
+    })
     Optional<User> findByUsername(String username);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = USERNAME_CACHE_REGION)
+    })
+    @Query("select new com.mk.todotasksh2.sequrity.AppUserDetails(u.id, u.username, u.password, u.role) " +
+            "from User u where u.username = :username")
+    Optional<AppUserDetails> findPrincipalByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") long id);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query(SELECT_USER_DTO)
+    List<UserDto> findAllUserDtos(Pageable pageable);
+
+    @Query(SELECT_USER_DTO + "where u.id = :id")
+    Optional<UserDto> findUserDtoById(@Param("id") long id);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    @Query(SELECT_USER_DTO + "where u.id > :afterId order by u.id")
+    Slice<UserDto> findSliceByIdAfter(@Param("afterId") long afterId, Pageable pageable);
 }
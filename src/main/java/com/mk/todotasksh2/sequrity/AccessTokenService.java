@@ -0,0 +1,125 @@
+package com.mk.todotasksh2.sequrity;
+
+import lombok.extern.slf4j.Slf4j;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mk.todotasksh2.model.Role;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+@Slf4j
+@Component
+public class AccessTokenService {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final TokenKeyRing keyRing;
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    private final Cache<Long, Long> revokedBefore;
+
+    public AccessTokenService(TokenKeyRing keyRing,
+                              @Value("${app.security.token.ttl:15m}") Duration ttl,
+                              Clock clock) {
+        this.keyRing = keyRing;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(long userId, String username, Role role) {
+        TokenKeyRing.SigningKey key = keyRing.current();
+        long issuedAt = clock.millis();
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String payload = String.join("|", key.id(), Long.toString(userId), role == null ? "" : role.name(),
+                Long.toString(issuedAt), Long.toString(expiresAt), username);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(key, payloadBytes));
+    }
+
+    public Optional<TokenClaims> verify(String token) {
+        try {
+            int separator = token.indexOf('.');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            byte[] payloadBytes = DECODER.decode(token.substring(0, separator));
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 6);
+            if (parts.length != 6) {
+                return Optional.empty();
+            }
+            Optional<TokenKeyRing.SigningKey> key = keyRing.find(parts[0]);
+            if (key.isEmpty() || !MessageDigest.isEqual(sign(key.get(), payloadBytes), signature)) {
+                log.warn("Access token with invalid signature or unknown key");
+                return Optional.empty();
+            }
+            if (Long.parseLong(parts[4]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            long userId = Long.parseLong(parts[1]);
+            Long revokedAt = revokedBefore.getIfPresent(userId);
+            if (revokedAt != null && Long.parseLong(parts[3]) <= revokedAt) {
+                log.debug("Access token of user ID: {} was revoked", userId);
+                return Optional.empty();
+            }
+            Role role = parts[2].isEmpty() ? null : Role.valueOf(parts[2]);
+            return Optional.of(new TokenClaims(userId, parts[5], role));
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed access token");
+            return Optional.empty();
+        }
+    }
+
+    public void revokeUser(long userId) {
+        revoke(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    revoke(userId);
+                }
+            });
+        }
+    }
+
+    private void revoke(long userId) {
+        revokedBefore.put(userId, clock.millis());
+        log.debug("Access tokens of user ID: {} revoked", userId);
+    }
+
+    private static byte[] sign(TokenKeyRing.SigningKey key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(TokenKeyRing.HMAC_ALGORITHM);
+            mac.init(key.key());
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    public record TokenClaims(long userId, String username, Role role) {
+    }
+}
@@ -1,53 +1,39 @@
 package com.mk.todotasksh2.sequrity;
 
-import lombok.AllArgsConstructor;
-import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.model.Role;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
 
-@AllArgsConstructor
-public class AppUserDetails implements UserDetails{
-    private User user;
+public record AppUserDetails(long id, String username, String password, Role role) implements UserDetails {
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(user.getRole());
+    public AppUserDetails withoutPassword() {
+        return new AppUserDetails(id, username, null, role);
     }
 
-    @Override
-    public String getPassword() {
-        return user.getPassword();
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
     }
 
     @Override
-    public String getUsername() {
-        return user.getUsername();
-    }
-
-    @Override
-    public boolean isAccountNonExpired() {
-        return UserDetails.super.isAccountNonExpired();
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role == null ? Collections.emptySet() : Collections.singleton(role);
     }
 
     @Override
-    public boolean isAccountNonLocked() {
-        return UserDetails.super.isAccountNonLocked();
+    public String getPassword() {
+        return password;
     }
 
     @Override
-    public boolean isCredentialsNonExpired() {
-        return UserDetails.super.isCredentialsNonExpired();
+    public String getUsername() {
+        return username;
     }
 
     @Override
-    public boolean isEnabled() {
-        return UserDetails.super.isEnabled();
-    }
-
-    public User getUser(){
-        return this.user;
+    public String toString() {
+        return "AppUserDetails[id=" + id + ", username=" + username + ", role=" + role + "]";
     }
 }
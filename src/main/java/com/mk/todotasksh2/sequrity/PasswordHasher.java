@@ -0,0 +1,131 @@
+package com.mk.todotasksh2.sequrity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.exeption.PasswordHashingBusyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+public class PasswordHasher implements PasswordEncoder {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Bulk provisioning runs on its own lane so that a large import never occupies the login queue.
+     * Callers wait for a permit instead of being rejected; the permits never exceed the lane's capacity.
+     */
+    private final ThreadPoolExecutor bulkExecutor;
+
+    private final Semaphore bulkPermits;
+
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, int parallelism, int queueSize, int bulkParallelism,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        int bulkThreads = bulkParallelism > 0 ? bulkParallelism : Math.max(1, threads / 2);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkExecutor = new ThreadPoolExecutor(bulkThreads, bulkThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bulkThreads),
+                Thread.ofPlatform().name("password-bulk-hashing-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkPermits = new Semaphore(bulkThreads);
+        Gauge.builder("password.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.bulk.waiting", bulkPermits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.bulk.active", bulkExecutor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        log.info("Password hashing executor started with {} threads and queue size {}, bulk lane with {} threads",
+                threads, queueSize, bulkThreads);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return join(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return join(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            hashes.add(submitBulk(() -> passwordEncoder.encode(rawPassword)));
+        }
+        return hashes.stream()
+                .map(PasswordHasher::join)
+                .toList();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submitBulk(Supplier<T> task) {
+        try {
+            bulkPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException();
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, bulkExecutor)
+                    .whenComplete((result, failure) -> bulkPermits.release());
+        } catch (RejectedExecutionException e) {
+            bulkPermits.release();
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue is full ({} waiting), request shed", executor.getQueue().size());
+            throw new PasswordHashingBusyException();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.mk.todotasksh2.sequrity;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.exeption.PasswordHashingBusyException;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Slf4j
+@RequiredArgsConstructor
+public class PasswordHashingBusyFilter extends OncePerRequestFilter {
+
+    private final MessageSource messageSource;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (PasswordHashingBusyException ex) {
+            if (response.isCommitted()) {
+                throw ex;
+            }
+            log.error("Authentication shed, password hashing is busy: {}", request.getRequestURI());
+            response.resetBuffer();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, PasswordHashingBusyException.RETRY_AFTER_SECONDS);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\": \"Service Unavailable\", \"message\": \""
+                    + messageSource.getMessage(ex.getReason(), null, LocaleContextHolder.getLocale())
+                    + "\"}");
+        }
+    }
+}
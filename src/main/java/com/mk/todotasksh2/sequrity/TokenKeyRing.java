@@ -0,0 +1,73 @@
+package com.mk.todotasksh2.sequrity;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class TokenKeyRing {
+
+    static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Duration retention;
+
+    private final Clock clock;
+
+    private volatile List<SigningKey> keys = List.of();
+
+    public TokenKeyRing(@Value("${app.security.token.ttl:15m}") Duration tokenTtl,
+                        @Value("${app.security.token.key-rotation:PT6H}") Duration keyRotation,
+                        Clock clock) {
+        this.retention = keyRotation.plus(tokenTtl);
+        this.clock = clock;
+        rotate();
+    }
+
+    public SigningKey current() {
+        return keys.getFirst();
+    }
+
+    public Optional<SigningKey> find(String keyId) {
+        for (SigningKey key : keys) {
+            if (key.id().equals(keyId)) {
+                return Optional.of(key);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedRateString = "${app.security.token.key-rotation:PT6H}",
+            initialDelayString = "${app.security.token.key-rotation:PT6H}")
+    public synchronized void rotate() {
+        Instant now = clock.instant();
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        List<SigningKey> rotated = new ArrayList<>();
+        rotated.add(new SigningKey(UUID.randomUUID().toString().substring(0, 8),
+                new SecretKeySpec(secret, HMAC_ALGORITHM), now));
+        for (SigningKey key : keys) {
+            if (key.createdAt().plus(retention).isAfter(now)) {
+                rotated.add(key);
+            }
+        }
+        keys = List.copyOf(rotated);
+        log.info("Token signing key rotated, {} keys active", rotated.size());
+    }
+
+    public record SigningKey(String id, SecretKeySpec key, Instant createdAt) {
+    }
+}
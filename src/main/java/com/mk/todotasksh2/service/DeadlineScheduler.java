@@ -0,0 +1,188 @@
+package com.mk.todotasksh2.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskDeadlineView;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Slf4j
+@Component
+public class DeadlineScheduler {
+
+    static final String JOB_NAME = "deadline-check";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final TasksRepository tasksRepository;
+
+    private final TaskService taskService;
+
+    private final Clock clock;
+
+    private final Set<TaskState> finalStates = TaskState.finalStates();
+
+    private final TaskState overdueState;
+
+    private final long horizonDays;
+
+    private final long catchUpDays;
+
+    private final NavigableMap<LocalDate, Set<Long>> upcoming = new TreeMap<>();
+
+    private final Map<Long, LocalDate> deadlines = new HashMap<>();
+
+    private LocalDate loadedUntil;
+
+    public DeadlineScheduler(TasksRepository tasksRepository,
+                             TaskService taskService,
+                             Clock clock,
+                             @Value("${app.tasks.deadline.overdue-state:}") TaskState overdueState,
+                             @Value("${app.tasks.deadline.horizon:7d}") Duration horizon,
+                             @Value("${app.tasks.deadline.catch-up:3d}") Duration catchUp) {
+        this.tasksRepository = tasksRepository;
+        this.taskService = taskService;
+        this.clock = clock;
+        this.overdueState = overdueState;
+        this.horizonDays = horizon.toDays();
+        this.catchUpDays = catchUp.toDays();
+    }
+
+    /**
+     * Resumes from the day of the last completed check, however long ago, so that deadlines passed during an
+     * outage are still flagged. The catch-up window only applies when no check has completed yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate resumeFrom = tasksRepository.findLastJobRun(JOB_NAME)
+                .orElse(today.minusDays(catchUpDays));
+        synchronized (this) {
+            loadedUntil = resumeFrom.minusDays(1);
+        }
+        extendHorizon(today);
+        processOverdue();
+    }
+
+    @Scheduled(cron = "${app.tasks.deadline.cron:0 0 0 * * *}")
+    public void processOverdue() {
+        LocalDate today = LocalDate.now(clock);
+        List<Long> due = takeDue(today);
+        int overdue = 0;
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Long> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            overdue += taskService.markOverdue(batch, today, overdueState).size();
+        }
+        if (!due.isEmpty()) {
+            log.info("Deadline check for {}: {} tasks due, {} overdue", today, due.size(), overdue);
+        }
+        tasksRepository.saveLastJobRun(JOB_NAME, today);
+        extendHorizon(today);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTaskChange(TaskChangeEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                remove(event.taskId());
+                if (event.state() != null && !event.state().isFinal() && event.deadline() != null) {
+                    track(event.taskId(), event.deadline());
+                }
+            }
+            case STATE_CHANGED -> {
+                if (event.state().isFinal()) {
+                    remove(event.taskId());
+                }
+            }
+            case DELETED -> remove(event.taskId());
+            default -> {
+            }
+        }
+    }
+
+    synchronized int tracked() {
+        return deadlines.size();
+    }
+
+    private synchronized List<Long> takeDue(LocalDate today) {
+        List<Long> due = new ArrayList<>();
+        NavigableMap<LocalDate, Set<Long>> passed = upcoming.headMap(today, false);
+        for (Set<Long> ids : passed.values()) {
+            due.addAll(ids);
+            ids.forEach(deadlines::remove);
+        }
+        passed.clear();
+        return due;
+    }
+
+    private void extendHorizon(LocalDate today) {
+        LocalDate from;
+        LocalDate until = today.plusDays(horizonDays);
+        synchronized (this) {
+            from = loadedUntil;
+            if (!until.isAfter(from)) {
+                return;
+            }
+            loadedUntil = until;
+        }
+        LocalDate deadline = from;
+        long afterId = Long.MAX_VALUE;
+        int loaded = 0;
+        List<TaskDeadlineView> batch;
+        do {
+            batch = tasksRepository.findDeadlinesAfter(deadline, afterId, until, finalStates,
+                    PageRequest.of(0, BATCH_SIZE));
+            synchronized (this) {
+                for (TaskDeadlineView task : batch) {
+                    if (!deadlines.containsKey(task.id())) {
+                        track(task.id(), task.deadline());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                deadline = batch.getLast().deadline();
+                afterId = batch.getLast().id();
+                loaded += batch.size();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        log.debug("Loaded {} deadlines from {} to {}", loaded, from.plusDays(1), until);
+    }
+
+    private void track(long taskId, LocalDate deadline) {
+        if (deadline != null && loadedUntil != null && !deadline.isAfter(loadedUntil)) {
+            deadlines.put(taskId, deadline);
+            upcoming.computeIfAbsent(deadline, key -> new HashSet<>()).add(taskId);
+        }
+    }
+
+    private void remove(long taskId) {
+        LocalDate deadline = deadlines.remove(taskId);
+        if (deadline == null) {
+            return;
+        }
+        Set<Long> ids = upcoming.get(deadline);
+        ids.remove(taskId);
+        if (ids.isEmpty()) {
+            upcoming.remove(deadline);
+        }
+    }
+}
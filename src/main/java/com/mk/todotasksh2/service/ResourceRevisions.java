@@ -0,0 +1,50 @@
+package com.mk.todotasksh2.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ResourceRevisions {
+
+    public enum Resource {
+        TASKS,
+        USERS
+    }
+
+    private final Map<Resource, AtomicLong> revisions = new EnumMap<>(Resource.class);
+
+    public ResourceRevisions() {
+        long seed = System.currentTimeMillis();
+        for (Resource resource : Resource.values()) {
+            revisions.put(resource, new AtomicLong(seed));
+        }
+    }
+
+    public long current(Resource resource) {
+        return revisions.get(resource).get();
+    }
+
+    public void changed(Resource... resources) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(resources);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(resources);
+            }
+        });
+    }
+
+    private void increment(Resource... resources) {
+        for (Resource resource : resources) {
+            revisions.get(resource).incrementAndGet();
+        }
+    }
+}
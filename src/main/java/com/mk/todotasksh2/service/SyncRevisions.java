@@ -0,0 +1,51 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Component
+public class SyncRevisions {
+
+    private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private long lastRevision;
+
+    public SyncRevisions(TasksRepository tasksRepository) {
+        this.lastRevision = tasksRepository.findLastRevision();
+    }
+
+    public long next() {
+        Long bound = (Long) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+        long revision = allocate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.bindResource(this, revision);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SyncRevisions.this);
+                    inFlight.remove(revision);
+                }
+            });
+        } else {
+            inFlight.remove(revision);
+        }
+        return revision;
+    }
+
+    public synchronized long committed() {
+        return inFlight.isEmpty() ? lastRevision : inFlight.first() - 1;
+    }
+
+    private synchronized long allocate() {
+        inFlight.add(++lastRevision);
+        return lastRevision;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mk.todotasksh2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class TaskChangeFeed {
+
+    static final String RESYNC_EVENT = "resync";
+
+    private static final Entry RESYNC = new Entry(0L, null);
+
+    private final Object lock = new Object();
+
+    private final Entry[] buffer;
+
+    private final long firstId;
+
+    private long lastId;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int queueSize;
+
+    private final long timeoutMillis;
+
+    private final Counter droppedSubscribers;
+
+    public TaskChangeFeed(@Value("${app.tasks.changes.buffer-size:4096}") int bufferSize,
+                          @Value("${app.tasks.changes.queue-size:1024}") int queueSize,
+                          @Value("${app.tasks.changes.timeout:30m}") Duration timeout,
+                          MeterRegistry meterRegistry) {
+        this.buffer = new Entry[bufferSize];
+        this.queueSize = queueSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.lastId = System.currentTimeMillis();
+        this.firstId = lastId + 1;
+        Gauge.builder("tasks.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("tasks.changes.dropped").register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        synchronized (lock) {
+            Entry entry = new Entry(++lastId, event);
+            buffer[(int) (entry.id() % buffer.length)] = entry;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(entry);
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(queueSize));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                missedSince(lastEventId).forEach(subscriber::offer);
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    private List<Entry> missedSince(long lastEventId) {
+        long oldestId = Math.max(lastId - buffer.length + 1, firstId);
+        if (lastEventId > lastId || lastEventId < oldestId - 1 || lastId - lastEventId > queueSize) {
+            log.debug("Last-Event-ID {} is outside of the change buffer, requesting resync", lastEventId);
+            return List.of(RESYNC);
+        }
+        List<Entry> missed = new ArrayList<>((int) (lastId - lastEventId));
+        for (long id = lastEventId + 1; id <= lastId; id++) {
+            missed.add(buffer[(int) (id % buffer.length)]);
+        }
+        return missed;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private record Entry(long id, TaskChangeEvent event) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Queue<Entry> queue;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Queue<Entry> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void offer(Entry entry) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(entry)) {
+                log.warn("Task change subscriber fell {} events behind, dropping it", queueSize);
+                droppedSubscribers.increment();
+                close();
+                dispatcher.execute(emitter::complete);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    Entry entry;
+                    while (!closed && (entry = queue.poll()) != null) {
+                        send(entry);
+                    }
+                    draining.set(false);
+                } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Task change subscriber disconnected: {}", ex.getMessage());
+                close();
+            }
+        }
+
+        private void send(Entry entry) throws IOException {
+            if (entry == RESYNC) {
+                emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(entry.id()))
+                    .name(entry.event().type().name().toLowerCase(Locale.ROOT))
+                    .data(entry.event()));
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mk.todotasksh2.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFileFormat;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskExporter {
+
+    static final String CSV_HEADER = "id,description,deadline,state,user_id,username,role\n";
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final TasksRepository tasksRepository;
+
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long export(TaskFileFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<TaskDto> tasks = tasksRepository.streamAllTaskDtos()) {
+            if (format == TaskFileFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            Iterator<TaskDto> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                TaskDto task = iterator.next();
+                switch (format) {
+                    case NDJSON -> writer.write(objectMapper.writeValueAsString(task));
+                    case CSV -> writeCsv(writer, task);
+                }
+                writer.write('\n');
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Task export aborted after {} rows: {}", rows, e.getMessage());
+            throw e;
+        }
+        log.info("Exported {} tasks as {}", rows, format);
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, TaskDto task) throws IOException {
+        writer.write(Long.toString(task.id()));
+        writer.write(',');
+        writer.write(csvField(task.description()));
+        writer.write(',');
+        writer.write(task.deadline() == null ? "" : task.deadline().toString());
+        writer.write(',');
+        writer.write(task.state() == null ? "" : task.state().name());
+        writer.write(',');
+        if (task.user() != null) {
+            writer.write(Long.toString(task.user().id()));
+            writer.write(',');
+            writer.write(csvField(task.user().username()));
+            writer.write(',');
+            writer.write(csvField(task.user().role()));
+        } else {
+            writer.write(",,");
+        }
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
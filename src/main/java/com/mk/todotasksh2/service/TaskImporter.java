@@ -0,0 +1,263 @@
+package com.mk.todotasksh2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mk.todotasksh2.dto.TaskCreateDto;
+import com.mk.todotasksh2.dto.TaskFileFormat;
+import com.mk.todotasksh2.dto.TaskImportErrorDto;
+import com.mk.todotasksh2.dto.TaskImportRecord;
+import com.mk.todotasksh2.dto.TaskImportResultDto;
+import com.mk.todotasksh2.dto.UserDto;
+import com.mk.todotasksh2.mapper.TasksMapper;
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.UserRepository;
+import com.mk.todotasksh2.util.RecordReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class TaskImporter {
+
+    private static final int MAX_RECORD_LENGTH = 8192;
+
+    private final TaskService taskService;
+
+    private final UserRepository userRepository;
+
+    private final TasksMapper tasksMapper;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    private final Counter importedRecords;
+
+    private final Counter rejectedRecords;
+
+    public TaskImporter(TaskService taskService,
+                        UserRepository userRepository,
+                        TasksMapper tasksMapper,
+                        Validator validator,
+                        ObjectMapper objectMapper,
+                        EntityManager entityManager,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.tasks.import.chunk-size:500}") int chunkSize,
+                        @Value("${app.tasks.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.taskService = taskService;
+        this.userRepository = userRepository;
+        this.tasksMapper = tasksMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.importedRecords = Counter.builder("tasks.import.records").tag("outcome", "imported")
+                .register(meterRegistry);
+        this.rejectedRecords = Counter.builder("tasks.import.records").tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    public TaskImportResultDto importTasks(TaskFileFormat format, InputStream in) throws IOException {
+        RecordReader reader = new RecordReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), MAX_RECORD_LENGTH);
+        Progress progress = new Progress(loadUserIds());
+        CsvColumns columns = format == TaskFileFormat.CSV ? readHeader(reader) : null;
+        while (true) {
+            TaskImportRecord record;
+            try {
+                if (format == TaskFileFormat.CSV) {
+                    List<String> fields = reader.nextCsv();
+                    if (fields == null) {
+                        break;
+                    }
+                    if (isBlank(fields)) {
+                        continue;
+                    }
+                    record = columns.toRecord(fields);
+                } else {
+                    String line = reader.nextLine();
+                    if (line == null) {
+                        break;
+                    }
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    record = objectMapper.readValue(line, TaskImportRecord.class);
+                }
+            } catch (JsonProcessingException e) {
+                progress.reject(reader.recordLine(), List.of("malformed record: " + e.getOriginalMessage()));
+                continue;
+            } catch (RecordReader.MalformedRecordException e) {
+                progress.reject(reader.recordLine(), List.of("malformed record: " + e.getMessage()));
+                continue;
+            } catch (DateTimeParseException e) {
+                progress.reject(reader.recordLine(), List.of("deadline: must be a date in the yyyy-MM-dd format"));
+                continue;
+            }
+            if (record == null) {
+                progress.reject(reader.recordLine(), List.of("malformed record: not a task"));
+                continue;
+            }
+            progress.add(reader.recordLine(), record);
+        }
+        progress.commit();
+        log.info("Task import finished: {} imported, {} rejected", progress.imported, progress.rejected);
+        return new TaskImportResultDto(progress.imported, progress.rejected, progress.errors);
+    }
+
+    private Map<String, Long> loadUserIds() {
+        Map<String, Long> userIds = new HashMap<>();
+        for (UserDto user : userRepository.findAllUserDtos(Pageable.unpaged())) {
+            userIds.put(user.username(), user.id());
+        }
+        return userIds;
+    }
+
+    private CsvColumns readHeader(RecordReader reader) throws IOException {
+        List<String> header;
+        do {
+            header = reader.nextCsv();
+        } while (header != null && isBlank(header));
+        CsvColumns columns = header == null ? null : CsvColumns.of(header);
+        if (columns == null) {
+            log.error("CSV import without description and deadline columns: {}", header);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "error.tasks.import.Header.message");
+        }
+        return columns;
+    }
+
+    private static boolean isBlank(List<String> fields) {
+        return fields.size() == 1 && fields.getFirst().isBlank();
+    }
+
+    private record PendingTask(Task task, Long userId) {
+    }
+
+    private record CsvColumns(int description, int deadline, int username) {
+
+        static CsvColumns of(List<String> header) {
+            List<String> names = header.stream()
+                    .map(name -> name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            int description = names.indexOf("description");
+            int deadline = names.indexOf("deadline");
+            if (description < 0 || deadline < 0) {
+                return null;
+            }
+            return new CsvColumns(description, deadline, names.indexOf("username"));
+        }
+
+        TaskImportRecord toRecord(List<String> fields) {
+            String deadline = field(fields, this.deadline);
+            return new TaskImportRecord(field(fields, description),
+                    deadline == null || deadline.isBlank() ? null : LocalDate.parse(deadline.trim()),
+                    field(fields, username));
+        }
+
+        private static String field(List<String> fields, int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : null;
+        }
+    }
+
+    private final class Progress {
+
+        private final Map<String, Long> userIds;
+
+        private final List<PendingTask> chunk = new ArrayList<>(chunkSize);
+
+        private final List<TaskImportErrorDto> errors = new ArrayList<>();
+
+        private long imported;
+
+        private long rejected;
+
+        private Progress(Map<String, Long> userIds) {
+            this.userIds = userIds;
+        }
+
+        void add(long line, TaskImportRecord record) {
+            TaskCreateDto taskCreateDto = new TaskCreateDto(record.description(), record.deadline());
+            List<String> violations = new ArrayList<>(validator.validate(taskCreateDto).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList());
+            Long userId = null;
+            if (record.username() != null && !record.username().isBlank()) {
+                userId = userIds.get(record.username().trim());
+                if (userId == null) {
+                    violations.add("username: user not found");
+                }
+            }
+            if (!violations.isEmpty()) {
+                reject(line, violations);
+                return;
+            }
+            chunk.add(new PendingTask(tasksMapper.taskCreateDtoToTask(taskCreateDto), userId));
+            if (chunk.size() == chunkSize) {
+                commit();
+            }
+        }
+
+        void reject(long line, List<String> violations) {
+            rejected++;
+            rejectedRecords.increment();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new TaskImportErrorDto(line, violations));
+            }
+        }
+
+        void commit() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            int saved = transactionTemplate.execute(status -> {
+                List<Task> tasks = new ArrayList<>(chunk.size());
+                for (PendingTask pending : chunk) {
+                    if (pending.userId() != null) {
+                        pending.task().setUser(entityManager.getReference(User.class, pending.userId()));
+                    }
+                    tasks.add(pending.task());
+                }
+                return taskService.importTasks(tasks);
+            });
+            chunk.clear();
+            imported += saved;
+            importedRecords.increment(saved);
+            log.info("Task import progress: {} imported, {} rejected", imported, rejected);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.mk.todotasksh2.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskTextView;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+public class TaskSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String PREFIX_MARK = "*";
+
+    private static final int MAX_QUERY_TERMS = 10;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final TasksRepository tasksRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+
+    private final Set<Long> changedDuringBuild = new HashSet<>();
+
+    private long totalLength;
+
+    private boolean building;
+
+    public TaskSearchIndex(TasksRepository tasksRepository) {
+        this.tasksRepository = tasksRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            building = true;
+            changedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long afterId = 0;
+        int loaded = 0;
+        List<TaskTextView> batch;
+        do {
+            batch = tasksRepository.findTextsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (TaskTextView task : batch) {
+                    if (!changedDuringBuild.contains(task.id())) {
+                        index(task.id(), task.description());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.getLast().id();
+                loaded += batch.size();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        lock.writeLock().lock();
+        try {
+            building = false;
+            changedDuringBuild.clear();
+            log.info("Task search index built from {} tasks, {} terms", loaded, postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                lock.writeLock().lock();
+                try {
+                    touched(event.taskId());
+                    index(event.taskId(), event.description());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            case DELETED -> {
+                lock.writeLock().lock();
+                try {
+                    touched(event.taskId());
+                    remove(event.taskId());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    public List<Long> search(String query, int offset, int limit) {
+        List<QueryTerm> terms = parse(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Double>> termScores = new ArrayList<>(terms.size());
+            for (QueryTerm term : terms) {
+                Map<Long, Double> scores = score(term);
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+                termScores.add(scores);
+            }
+            termScores.sort(Comparator.comparingInt(Map::size));
+            return topHits(termScores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<QueryTerm> parse(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size() && terms.size() < MAX_QUERY_TERMS; i++) {
+                boolean prefix = i == tokens.size() - 1 && word.endsWith(PREFIX_MARK);
+                terms.add(new QueryTerm(tokens.get(i), prefix));
+            }
+        }
+        return terms;
+    }
+
+    private Map<Long, Double> score(QueryTerm term) {
+        Map<String, Map<Long, Integer>> matches = term.prefix()
+                ? postings.subMap(term.text(), true, term.text() + Character.MAX_VALUE, false)
+                : postings.containsKey(term.text()) ? Map.of(term.text(), postings.get(term.text())) : Map.of();
+        Map<Long, Double> scores = new HashMap<>();
+        int documents = documentLengths.size();
+        double averageLength = documents == 0 ? 0 : (double) totalLength / documents;
+        for (Map<Long, Integer> frequencies : matches.values()) {
+            double idf = Math.log(1 + (documents - frequencies.size() + 0.5) / (frequencies.size() + 0.5));
+            frequencies.forEach((taskId, frequency) -> {
+                double norm = K1 * (1 - B + B * documentLengths.get(taskId) / averageLength);
+                double score = idf * frequency * (K1 + 1) / (frequency + norm);
+                scores.merge(taskId, score, Math::max);
+            });
+        }
+        return scores;
+    }
+
+    private static List<Long> topHits(List<Map<Long, Double>> termScores, int offset, int limit) {
+        int wanted = offset + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.ORDER);
+        candidates:
+        for (Map.Entry<Long, Double> candidate : termScores.getFirst().entrySet()) {
+            double score = candidate.getValue();
+            for (int i = 1; i < termScores.size(); i++) {
+                Double termScore = termScores.get(i).get(candidate.getKey());
+                if (termScore == null) {
+                    continue candidates;
+                }
+                score += termScore;
+            }
+            Hit hit = new Hit(candidate.getKey(), score);
+            if (top.size() < wanted) {
+                top.add(hit);
+            } else if (Hit.ORDER.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(Hit.ORDER.reversed());
+        List<Long> ids = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(ranked.get(i).taskId());
+        }
+        return ids;
+    }
+
+    private void touched(long taskId) {
+        if (building) {
+            changedDuringBuild.add(taskId);
+        }
+    }
+
+    private void index(long taskId, String description) {
+        remove(taskId);
+        List<String> tokens = tokenize(description);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(taskId, frequency));
+        documentTerms.put(taskId, frequencies.keySet());
+        documentLengths.put(taskId, tokens.size());
+        totalLength += tokens.size();
+    }
+
+    private void remove(long taskId) {
+        Set<String> terms = documentTerms.remove(taskId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> frequencies = postings.get(term);
+            frequencies.remove(taskId);
+            if (frequencies.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= documentLengths.remove(taskId);
+    }
+
+    private record QueryTerm(String text, boolean prefix) {
+    }
+
+    private record Hit(long taskId, double score) {
+
+        private static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::taskId).reversed());
+    }
+}
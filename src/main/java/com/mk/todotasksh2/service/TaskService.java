@@ -1,79 +1,408 @@
 package com.mk.todotasksh2.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.aop.RetryOnConflict;
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.BulkItemErrorDto;
+import com.mk.todotasksh2.dto.CursorPage;
+import com.mk.todotasksh2.dto.StateChangeOutcome;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
 import com.mk.todotasksh2.dto.TaskCreateDto;
+import com.mk.todotasksh2.dto.TaskCursor;
+import com.mk.todotasksh2.dto.TaskCursorOrder;
+import com.mk.todotasksh2.dto.TaskDeltaDto;
 import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.dto.TaskRevision;
+import com.mk.todotasksh2.dto.TaskStateChangeDto;
+import com.mk.todotasksh2.dto.TaskStateChangeResultDto;
+import com.mk.todotasksh2.dto.TaskStateView;
+import com.mk.todotasksh2.dto.TaskStatsView;
 import com.mk.todotasksh2.dto.TaskUpdateDto;
 import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.mapper.TasksMapper;
-import com.mk.todotasksh2.mapper.UsersMapper;
-import com.mk.todotasksh2.model.Role;
 import com.mk.todotasksh2.model.Task;
 import com.mk.todotasksh2.model.TaskState;
 import com.mk.todotasksh2.model.User;
 import com.mk.todotasksh2.repository.TasksRepository;
 import com.mk.todotasksh2.sequrity.AppUserDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
+@Transactional
 @RequiredArgsConstructor
 public class TaskService {
 
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    private static final int STATE_CHANGE_ATTEMPTS = 3;
+
     private final TasksRepository tasksRepository;
 
     private final UserService userService;
 
     private final TasksMapper tasksMapper;
 
-    private final UsersMapper usersMapper;
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    private final ResourceRevisions resourceRevisions;
+
+    private final SyncRevisions syncRevisions;
+
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<TaskDto> findAllTasks(Pageable pageable) {
-        return tasksMapper.toListTasksDto(tasksRepository.findAll(pageable).getContent());
+    private final TaskSearchIndex taskSearchIndex;
+
+    @Transactional(readOnly = true)
+    public List<TaskDto> findAllTasks(TaskFilter filter, Pageable pageable) {
+        if (filter.isEmpty()) {
+            return tasksRepository.findAllTaskDtos(pageable);
+        }
+        if (filter.isContradictory()) {
+            log.error("Contradictory task filter: {}", filter);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "error.tasks.filter.message");
+        }
+        return tasksRepository.findTaskDtos(filter, pageable);
     }
 
-    public UserDto findTaskPerformer(long id) {
-        User user = findById(id).getUser();
-        if (user == null) {
-            log.warn("No user assigned to task ID: {}", id);
-            user = new User();
-            user.setUsername("unassigned");
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDto> findTasksAfter(String after, int size, TaskCursorOrder order) {
+        TaskCursor cursor = after.isEmpty() ? TaskCursor.first(order) : TaskCursor.decode(after);
+        Pageable limit = PageRequest.of(0, size);
+        Slice<TaskDto> slice = switch (cursor.order()) {
+            case ID -> tasksRepository.findSliceByIdAfter(cursor.id(), limit);
+            case DEADLINE -> findSliceByDeadline(cursor, after.isEmpty(), limit);
+        };
+        List<TaskDto> tasks = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            TaskDto last = tasks.getLast();
+            nextCursor = new TaskCursor(cursor.order(), last.deadline(), last.id()).encode();
+        }
+        return new CursorPage<>(tasks, nextCursor);
+    }
+
+    private Slice<TaskDto> findSliceByDeadline(TaskCursor cursor, boolean first, Pageable limit) {
+        if (!first && cursor.deadline() == null) {
+            return tasksRepository.findSliceByNullDeadlineAfter(cursor.id(), limit);
+        }
+        Slice<TaskDto> dated = first
+                ? tasksRepository.findSliceOrderByDeadline(limit)
+                : tasksRepository.findSliceByDeadlineAfter(cursor.deadline(), cursor.id(), limit);
+        if (dated.hasNext()) {
+            return dated;
         }
-        return usersMapper.toUserDto(user);
+        int remaining = limit.getPageSize() - dated.getNumberOfElements();
+        Slice<TaskDto> undated = tasksRepository.findSliceByNullDeadlineAfter(0L,
+                PageRequest.of(0, Math.max(remaining, 1)));
+        if (remaining == 0) {
+            return new SliceImpl<>(dated.getContent(), limit, undated.hasContent());
+        }
+        List<TaskDto> tasks = new ArrayList<>(dated.getContent());
+        tasks.addAll(undated.getContent());
+        return new SliceImpl<>(tasks, limit, undated.hasNext());
     }
 
+    @Transactional(readOnly = true)
+    public UserDto findTaskPerformer(long id) {
+        return tasksRepository.findPerformerById(id)
+                .orElseGet(() -> {
+                    if (!tasksRepository.existsById(id)) {
+                        log.error("Task ID: {} not found", id);
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "error.tasks.NotFound.message");
+                    }
+                    log.warn("No user assigned to task ID: {}", id);
+                    return new UserDto(0L, "unassigned", (String) null);
+                });
+    }
+
+    @Transactional(readOnly = true)
     public TaskDto findTaskById(long id) {
-        return tasksMapper.toTaskDto(findById(id));
+        return tasksRepository.findTaskDtoById(id)
+                .orElseThrow(() -> {
+                    log.error("Task ID: {} not found", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.tasks.NotFound.message");
+                });
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskDto> searchTasks(String query, int page, int size) {
+        List<Long> ids = taskSearchIndex.search(query, page * size, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskDto> tasks = new HashMap<>();
+        tasksRepository.findTaskDtosByIdIn(ids).forEach(task -> tasks.put(task.id(), task));
+        List<TaskDto> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            TaskDto task = tasks.get(id);
+            if (task != null) {
+                ranked.add(task);
+            }
+        }
+        return ranked;
+    }
+
+    @Transactional(readOnly = true)
+    public TaskDeltaDto findTasksChangedSince(long since) {
+        long revision = syncRevisions.committed();
+        if (since >= revision) {
+            return new TaskDeltaDto(revision, List.of(), List.of());
+        }
+        return new TaskDeltaDto(revision,
+                tasksRepository.findTaskDtosByRevisionBetween(since, revision),
+                tasksRepository.findTombstonesByRevisionBetween(since, revision));
+    }
+
+    @Transactional(readOnly = true)
+    public String findTaskETag(long id) {
+        return tasksRepository.findRevisionById(id)
+                .map(TaskRevision::eTag)
+                .orElseThrow(() -> {
+                    log.error("Task ID: {} not found", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.tasks.NotFound.message");
+                });
+    }
+
+    public String findTasksETag() {
+        return "tasks-" + resourceRevisions.current(ResourceRevisions.Resource.TASKS);
     }
 
     public TaskDto createTask(TaskCreateDto taskCreateDto) {
         Task task = tasksMapper.taskCreateDtoToTask(taskCreateDto);
+        task.setRevision(syncRevisions.next());
         Task savedTask = tasksRepository.save(task);
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.created(savedTask.getId(), savedTask.getState(),
+                savedTask.getDeadline(), savedTask.getDescription()));
         return tasksMapper.toTaskDto(savedTask);
     }
 
-    public TaskDto changeState(Long taskId, TaskState newState) {
-        Task task = findById(taskId);
-        TaskState currentState = task.getState();
-        if (currentState == newState ) {
-            return tasksMapper.toTaskDto(task);
+    public BulkCreateResultDto createTasks(List<TaskCreateDto> taskCreateDtos) {
+        List<Long> createdIds = new ArrayList<>(taskCreateDtos.size());
+        List<BulkItemErrorDto> errors = new ArrayList<>();
+        List<Task> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+
+        for (int i = 0; i < taskCreateDtos.size(); i++) {
+            TaskCreateDto taskCreateDto = taskCreateDtos.get(i);
+            List<String> violations = validate(taskCreateDto);
+            if (!violations.isEmpty()) {
+                errors.add(new BulkItemErrorDto(i, violations));
+                continue;
+            }
+            chunk.add(tasksMapper.taskCreateDtoToTask(taskCreateDto));
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                saveChunk(chunk, createdIds);
+            }
+        }
+        saveChunk(chunk, createdIds);
+
+        log.debug("Bulk created {} tasks, rejected {}", createdIds.size(), errors.size());
+        return new BulkCreateResultDto(createdIds, errors);
+    }
+
+    public int importTasks(List<Task> tasks) {
+        List<Long> createdIds = new ArrayList<>(tasks.size());
+        saveChunk(tasks, createdIds);
+        return createdIds.size();
+    }
+
+    private void saveChunk(List<Task> chunk, List<Long> createdIds) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long revision = syncRevisions.next();
+        chunk.forEach(task -> task.setRevision(revision));
+        tasksRepository.saveAll(chunk);
+        tasksRepository.flush();
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        for (Task task : chunk) {
+            createdIds.add(task.getId());
+            eventPublisher.publishEvent(TaskChangeEvent.created(task.getId(), task.getState(), task.getDeadline(),
+                    task.getDescription()));
+            if (task.getUser() != null) {
+                eventPublisher.publishEvent(TaskChangeEvent.assigned(task.getId(), task.getUser().getId(),
+                        new TaskStatsView(task.getId(), task.getState(), null, task.getDeadline())));
+            }
         }
-        if (isNotAdmin() && (newState == TaskState.DONE || newState == TaskState.CANCELLED)) {
+        entityManager.clear();
+        chunk.clear();
+    }
+
+    private List<String> validate(TaskCreateDto taskCreateDto) {
+        if (taskCreateDto == null) {
+            return List.of("task: must not be null");
+        }
+        return validator.validate(taskCreateDto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    public TaskDto changeState(Long taskId, TaskState newState) {
+        if (isAdminOnly(newState) && isNotAdmin()) {
             log.error("User trying to reassign task ID: {} which is not allowed", taskId);
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "error.NotAccessChangeState.message");
         }
-        task.setState(TaskState.changeState(currentState, newState));
-        tasksRepository.save(task);
+        for (int attempt = 1; attempt <= STATE_CHANGE_ATTEMPTS; attempt++) {
+            TaskStatsView current = findStatsViewById(taskId);
+            if (current.state() == newState) {
+                return findTaskById(taskId);
+            }
+            TaskState.changeState(current.state(), newState);
+            if (tasksRepository.updateStateById(taskId, Set.of(current.state()), newState,
+                    syncRevisions.next()) == 1) {
+                resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+                eventPublisher.publishEvent(TaskChangeEvent.stateChanged(taskId, newState, current));
+                return findTaskById(taskId);
+            }
+            log.warn("Task ID: {} state changed concurrently, attempt {}", taskId, attempt);
+        }
+        log.error("Task ID: {} state could not be changed to {}", taskId, newState);
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "error.tasks.StateConflict.message");
+    }
 
-        return tasksMapper.toTaskDto(task);
+    public List<TaskStateChangeResultDto> changeStates(List<TaskStateChangeDto> changes) {
+        boolean notAdmin = changes.stream().anyMatch(change -> isAdminOnly(change.state())) && isNotAdmin();
+        Map<Long, TaskStatsView> currentTasks = new HashMap<>();
+        for (TaskStatsView task : tasksRepository.findStatsViewsByIdIn(
+                changes.stream().map(TaskStateChangeDto::id).toList())) {
+            currentTasks.put(task.id(), task);
+        }
+
+        TaskStateChangeResultDto[] results = new TaskStateChangeResultDto[changes.size()];
+        Map<Transition, List<Long>> transitions = new LinkedHashMap<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            long id = changes.get(i).id();
+            TaskState newState = changes.get(i).state();
+            TaskState currentState = currentTasks.containsKey(id) ? currentTasks.get(id).state() : null;
+            if (!seenIds.add(id)) {
+                results[i] = new TaskStateChangeResultDto(id, currentState, StateChangeOutcome.DUPLICATE);
+            } else if (!currentTasks.containsKey(id)) {
+                results[i] = new TaskStateChangeResultDto(id, null, StateChangeOutcome.NOT_FOUND);
+            } else if (currentState == newState) {
+                results[i] = new TaskStateChangeResultDto(id, currentState, StateChangeOutcome.UNCHANGED);
+            } else if (notAdmin && isAdminOnly(newState)) {
+                results[i] = new TaskStateChangeResultDto(id, currentState, StateChangeOutcome.FORBIDDEN);
+            } else if (!currentState.canChangeTo(newState)) {
+                results[i] = new TaskStateChangeResultDto(id, currentState, StateChangeOutcome.INVALID_TRANSITION,
+                        currentState.getAvailableStates());
+            } else {
+                transitions.computeIfAbsent(new Transition(currentState, newState), key -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<Long, TaskStateChangeResultDto> applied = new HashMap<>();
+        transitions.forEach((transition, ids) -> {
+            int updated = tasksRepository.updateStateByIdIn(ids, transition.from(), transition.to(),
+                    syncRevisions.next());
+            boolean complete = updated == ids.size();
+            if (!complete) {
+                log.warn("Concurrent state change: {} of {} tasks moved from {} to {}",
+                        updated, ids.size(), transition.from(), transition.to());
+            }
+            Map<Long, TaskState> actualStates = complete ? Map.of() : findStates(ids);
+            for (Long id : ids) {
+                TaskState actualState = complete ? transition.to() : actualStates.get(id);
+                StateChangeOutcome outcome = actualState == transition.to()
+                        ? StateChangeOutcome.UPDATED
+                        : StateChangeOutcome.CONFLICT;
+                applied.put(id, new TaskStateChangeResultDto(id, actualState, outcome));
+                if (outcome == StateChangeOutcome.UPDATED) {
+                    eventPublisher.publishEvent(TaskChangeEvent.stateChanged(id, actualState, currentTasks.get(id)));
+                }
+            }
+        });
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = applied.get(changes.get(i).id());
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        }
+        log.debug("Bulk state change of {} tasks, {} transitions applied", changes.size(), applied.size());
+        return Arrays.asList(results);
+    }
+
+    public List<Long> markOverdue(Collection<Long> ids, LocalDate today, TaskState overdueState) {
+        List<TaskStatsView> overdue = tasksRepository.findStatsViewsByIdIn(ids).stream()
+                .filter(task -> task.deadline() != null && task.deadline().isBefore(today))
+                .filter(task -> task.state() != null && !task.state().isFinal())
+                .toList();
+
+        Map<Long, TaskStatsView> overdueTasks = new HashMap<>();
+        Map<TaskState, List<Long>> transitions = new EnumMap<>(TaskState.class);
+        for (TaskStatsView task : overdue) {
+            overdueTasks.put(task.id(), task);
+            eventPublisher.publishEvent(TaskChangeEvent.overdue(task.id(), task.deadline()));
+            if (overdueState != null && task.state() != overdueState && task.state().canChangeTo(overdueState)) {
+                transitions.computeIfAbsent(task.state(), key -> new ArrayList<>()).add(task.id());
+            }
+        }
+        transitions.forEach((from, group) -> {
+            int updated = tasksRepository.updateStateByIdIn(group, from, overdueState, syncRevisions.next());
+            List<Long> moved = updated == group.size()
+                    ? group
+                    : findStates(group).entrySet().stream()
+                    .filter(entry -> entry.getValue() == overdueState)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            moved.forEach(id -> eventPublisher.publishEvent(
+                    TaskChangeEvent.stateChanged(id, overdueState, overdueTasks.get(id))));
+        });
+
+        if (!transitions.isEmpty()) {
+            resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        }
+        log.debug("{} of {} tasks are overdue, {} moved to {}", overdue.size(), ids.size(),
+                transitions.values().stream().mapToInt(List::size).sum(), overdueState);
+        return overdue.stream().map(TaskStatsView::id).toList();
+    }
+
+    private Map<Long, TaskState> findStates(List<Long> ids) {
+        Map<Long, TaskState> states = new HashMap<>();
+        for (TaskStateView view : tasksRepository.findStatesByIdIn(ids)) {
+            states.put(view.id(), view.state());
+        }
+        return states;
+    }
+
+    private static boolean isAdminOnly(TaskState state) {
+        return state == TaskState.DONE || state == TaskState.CANCELLED;
+    }
+
+    private record Transition(TaskState from, TaskState to) {
     }
 
     public TaskDto assignUserToTask(Long taskId, Long userId) {
@@ -86,8 +415,12 @@ public class TaskService {
         }
 
         User newUser = userService.findById(userId);
+        TaskStatsView previous = statsView(task);
         newUser.addTask(task);
+        task.setRevision(syncRevisions.next());
         tasksRepository.save(task);
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.assigned(taskId, userId, previous));
 
         return tasksMapper.toTaskDto(task);
     }
@@ -95,18 +428,20 @@ public class TaskService {
     private boolean isNotAdmin() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         AppUserDetails principal = (AppUserDetails) authentication.getPrincipal();
-        return Role.ADMIN != principal.getUser().getRole();
+        return !principal.isAdmin();
     }
 
 
     public void deleteTaskById(Long id) {
-        if (tasksRepository.existsById(id)) {
-            tasksRepository.deleteById(id);
-            log.debug("Task ID: {} successfully deleted", id);
-        } else {
+        TaskStatsView previous = findStatsViewById(id);
+        if (tasksRepository.deleteTaskById(id) == 0) {
             log.error("Task ID: {} not found", id);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "error.tasks.NotFound.message");
         }
+        tasksRepository.saveTombstone(id, syncRevisions.next());
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.deleted(id, previous));
+        log.debug("Task ID: {} successfully deleted", id);
     }
 
     private Task findById(long id) {
@@ -117,17 +452,41 @@ public class TaskService {
                 });
     }
 
+    private TaskStatsView findStatsViewById(long id) {
+        return tasksRepository.findStatsViewById(id)
+                .orElseThrow(() -> {
+                    log.error("Task ID: {} not found", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.tasks.NotFound.message");
+                });
+    }
+
+    private static TaskStatsView statsView(Task task) {
+        return new TaskStatsView(task.getId(), task.getState(),
+                task.getUser() == null ? null : task.getUser().getId(), task.getDeadline());
+    }
+
+    @RetryOnConflict
     public TaskDto deleteUserFromTask(long id) {
         Task task = findById(id);
+        TaskStatsView previous = statsView(task);
         task.setUser(null);
+        task.setRevision(syncRevisions.next());
         tasksRepository.save(task);
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.unassigned(id, previous));
         return tasksMapper.toTaskDto(task);
     }
 
+    @RetryOnConflict
     public TaskDto editTask(Long id, TaskUpdateDto taskUpdateDto) {
         Task task = findById(id);
+        TaskStatsView previous = statsView(task);
         tasksMapper.updateTaskFromDto(taskUpdateDto, task);
+        task.setRevision(syncRevisions.next());
         tasksRepository.save(task);
+        resourceRevisions.changed(ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.updated(id, task.getState(), task.getDeadline(),
+                task.getDescription(), previous));
         return tasksMapper.toTaskDto(task);
     }
 }
@@ -0,0 +1,300 @@
+package com.mk.todotasksh2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskCountView;
+import com.mk.todotasksh2.dto.TaskStatsDto;
+import com.mk.todotasksh2.dto.TaskStatsView;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class TaskStatistics {
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final Set<TaskState> finalStates = TaskState.finalStates();
+
+    private final TasksRepository tasksRepository;
+
+    private final Clock clock;
+
+    private final Counter corrections;
+
+    /**
+     * Changes share the read lock and only touch adders; the write lock swaps in rebuilt counters.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong appliedChanges = new AtomicLong();
+
+    private volatile Counters counters = new Counters();
+
+    public TaskStatistics(TasksRepository tasksRepository, Clock clock, MeterRegistry meterRegistry) {
+        this.tasksRepository = tasksRepository;
+        this.clock = clock;
+        this.corrections = Counter.builder("tasks.stats.corrections").register(meterRegistry);
+    }
+
+    public TaskStatsDto getStats() {
+        Counters current = counters;
+        Map<TaskState, Long> byState = new EnumMap<>(TaskState.class);
+        current.byState.forEach((state, count) -> byState.put(state, count.sum()));
+        Map<Long, Long> byUser = new LinkedHashMap<>();
+        current.byUser.forEach((userId, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                byUser.put(userId, sum);
+            }
+        });
+        long overdue = 0;
+        for (LongAdder count : current.openByDeadline.headMap(LocalDate.now(clock)).values()) {
+            overdue += count.sum();
+        }
+        return new TaskStatsDto(current.total.sum(), byState, byUser, current.unassigned.sum(), overdue);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        TaskStatsView previous = event.previous();
+        lock.readLock().lock();
+        try {
+            Counters current = counters;
+            switch (event.type()) {
+                case CREATED -> current.add(
+                        new TaskStatsView(event.taskId(), event.state(), event.userId(), event.deadline()), 1);
+                case UPDATED -> current.move(previous, previous == null ? null
+                        : new TaskStatsView(previous.id(), event.state(), previous.userId(), event.deadline()));
+                case STATE_CHANGED -> current.move(previous, previous == null ? null
+                        : new TaskStatsView(previous.id(), event.state(), previous.userId(), previous.deadline()));
+                case ASSIGNED -> current.move(previous, previous == null ? null
+                        : new TaskStatsView(previous.id(), previous.state(), event.userId(), previous.deadline()));
+                case UNASSIGNED -> current.move(previous, previous == null ? null
+                        : new TaskStatsView(previous.id(), previous.state(), null, previous.deadline()));
+                case DELETED -> {
+                    if (previous != null) {
+                        current.add(previous, -1);
+                    }
+                }
+                case USER_REMOVED -> current.releaseUser(event.userId(), event.releasedByState());
+                case OVERDUE -> {
+                }
+            }
+            appliedChanges.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Counters loaded = null;
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            long changesBefore = appliedChanges.get();
+            loaded = load();
+            if (replace(loaded, changesBefore)) {
+                log.info("Task statistics rebuilt from {} tasks", loaded.total.sum());
+                return;
+            }
+            log.debug("Tasks changed during statistics rebuild, attempt {}", attempt);
+        }
+        lock.writeLock().lock();
+        try {
+            counters = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.warn("Tasks kept changing during {} statistics rebuilds, kept the last one until the next reconciliation",
+                REBUILD_ATTEMPTS);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.tasks.stats.reconcile-interval:PT10M}")
+    public void reconcile() {
+        long changesBefore = appliedChanges.get();
+        Counters stored = load();
+        Totals current;
+        lock.writeLock().lock();
+        try {
+            if (appliedChanges.get() != changesBefore) {
+                log.debug("Tasks changed during statistics reconciliation, retrying on next run");
+                return;
+            }
+            current = counters.totals();
+            if (current.equals(stored.totals())) {
+                return;
+            }
+            counters = stored;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.warn("Task statistics drifted from the database ({} tasks in memory, {} in database), replaced",
+                current.total(), stored.total.sum());
+        corrections.increment();
+    }
+
+    private boolean replace(Counters loaded, long changesBefore) {
+        lock.writeLock().lock();
+        try {
+            if (appliedChanges.get() != changesBefore) {
+                return false;
+            }
+            counters = loaded;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Counters load() {
+        Counters loaded = new Counters();
+        for (TaskCountView<TaskState> count : tasksRepository.countGroupedByState()) {
+            loaded.countState(count.key(), count.count());
+        }
+        for (TaskCountView<Long> count : tasksRepository.countGroupedByUser()) {
+            loaded.countUser(count.key(), count.count());
+            loaded.total.add(count.count());
+        }
+        for (TaskCountView<LocalDate> count : tasksRepository.countOpenGroupedByDeadline(finalStates)) {
+            loaded.countDeadline(count.key(), count.count());
+        }
+        return loaded;
+    }
+
+    private record Totals(Map<TaskState, Long> byState, Map<Long, Long> byUser, Map<LocalDate, Long> openByDeadline) {
+
+        long total() {
+            return byUser.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    private static final class Counters {
+
+        private final Map<TaskState, LongAdder> byState = new EnumMap<>(TaskState.class);
+
+        private final Map<Long, LongAdder> byUser = new ConcurrentHashMap<>();
+
+        private final ConcurrentSkipListMap<LocalDate, LongAdder> openByDeadline = new ConcurrentSkipListMap<>();
+
+        private final LongAdder unassigned = new LongAdder();
+
+        private final LongAdder stateless = new LongAdder();
+
+        private final LongAdder total = new LongAdder();
+
+        private Counters() {
+            for (TaskState state : TaskState.values()) {
+                byState.put(state, new LongAdder());
+            }
+        }
+
+        void add(TaskStatsView task, long delta) {
+            countState(task.state(), delta);
+            countUser(task.userId(), delta);
+            countDeadline(openDeadline(task), delta);
+            total.add(delta);
+        }
+
+        void move(TaskStatsView before, TaskStatsView after) {
+            if (before == null) {
+                return;
+            }
+            if (before.state() != after.state()) {
+                countState(before.state(), -1);
+                countState(after.state(), 1);
+            }
+            if (!Objects.equals(before.userId(), after.userId())) {
+                countUser(before.userId(), -1);
+                countUser(after.userId(), 1);
+            }
+            if (!Objects.equals(openDeadline(before), openDeadline(after))) {
+                countDeadline(openDeadline(before), -1);
+                countDeadline(openDeadline(after), 1);
+            }
+        }
+
+        /**
+         * Released tasks keep their state if it is one of {@link UserService#KEPT_TASK_STATES}, the rest
+         * go back to PLANNED. Both sides are open, so the deadline counters stay as they are.
+         */
+        void releaseUser(long userId, Map<TaskState, Long> releasedByState) {
+            if (releasedByState == null) {
+                return;
+            }
+            long released = 0;
+            for (Map.Entry<TaskState, Long> entry : releasedByState.entrySet()) {
+                released += entry.getValue();
+                if (!UserService.KEPT_TASK_STATES.contains(entry.getKey())) {
+                    countState(entry.getKey(), -entry.getValue());
+                    countState(TaskState.PLANNED, entry.getValue());
+                }
+            }
+            countUser(userId, -released);
+            countUser(null, released);
+        }
+
+        Totals totals() {
+            Map<TaskState, Long> states = new HashMap<>();
+            byState.forEach((state, count) -> states.put(state, count.sum()));
+            states.put(null, stateless.sum());
+            Map<Long, Long> users = new HashMap<>();
+            byUser.forEach((userId, count) -> users.put(userId, count.sum()));
+            users.put(null, unassigned.sum());
+            Map<LocalDate, Long> deadlines = new HashMap<>();
+            openByDeadline.forEach((deadline, count) -> deadlines.put(deadline, count.sum()));
+            states.values().removeIf(count -> count == 0);
+            users.values().removeIf(count -> count == 0);
+            deadlines.values().removeIf(count -> count == 0);
+            return new Totals(states, users, deadlines);
+        }
+
+        private void countState(TaskState state, long delta) {
+            if (state == null) {
+                stateless.add(delta);
+            } else {
+                byState.get(state).add(delta);
+            }
+        }
+
+        private void countUser(Long userId, long delta) {
+            if (userId == null) {
+                unassigned.add(delta);
+            } else {
+                byUser.computeIfAbsent(userId, key -> new LongAdder()).add(delta);
+            }
+        }
+
+        private void countDeadline(LocalDate deadline, long delta) {
+            if (deadline != null) {
+                openByDeadline.computeIfAbsent(deadline, key -> new LongAdder()).add(delta);
+            }
+        }
+
+        private static LocalDate openDeadline(TaskStatsView task) {
+            return task.state() != null && !task.state().isFinal() ? task.deadline() : null;
+        }
+    }
+}
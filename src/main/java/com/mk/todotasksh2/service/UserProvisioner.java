@@ -0,0 +1,117 @@
+package com.mk.todotasksh2.service;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.BulkItemErrorDto;
+import com.mk.todotasksh2.dto.UserCreateDto;
+import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.UserRepository;
+import com.mk.todotasksh2.sequrity.PasswordHasher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserProvisioner {
+
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private static final int SAVE_ATTEMPTS = 3;
+
+    private final UserService userService;
+
+    private final UserRepository userRepository;
+
+    private final PasswordHasher passwordHasher;
+
+    private final UsernameFilter usernameFilter;
+
+    private final Validator validator;
+
+    public BulkCreateResultDto createUsers(List<UserCreateDto> userCreateDtos) {
+        List<BulkItemErrorDto> errors = new ArrayList<>();
+        Map<String, Integer> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < userCreateDtos.size(); i++) {
+            UserCreateDto userCreateDto = userCreateDtos.get(i);
+            List<String> violations = validate(userCreateDto);
+            if (!violations.isEmpty()) {
+                errors.add(new BulkItemErrorDto(i, violations));
+            } else if (accepted.putIfAbsent(userCreateDto.username(), i) != null) {
+                errors.add(new BulkItemErrorDto(i, List.of("username: duplicate in request")));
+            }
+        }
+        rejectExisting(accepted, errors);
+
+        List<String> hashes = passwordHasher.encodeAll(accepted.values().stream()
+                .map(index -> userCreateDtos.get(index).password())
+                .toList());
+        Map<Integer, String> hashByIndex = new LinkedHashMap<>();
+        Iterator<String> hash = hashes.iterator();
+        accepted.values().forEach(index -> hashByIndex.put(index, hash.next()));
+
+        List<Long> createdIds = List.of();
+        for (int attempt = 1; !accepted.isEmpty(); attempt++) {
+            List<User> users = accepted.values().stream()
+                    .map(index -> User.builder()
+                            .username(userCreateDtos.get(index).username())
+                            .password(hashByIndex.get(index))
+                            .role(Role.USER)
+                            .build())
+                    .toList();
+            try {
+                createdIds = userService.saveUsers(users);
+                break;
+            } catch (DataIntegrityViolationException ex) {
+                if (!UserService.isUsernameConflict(ex) || attempt == SAVE_ATTEMPTS) {
+                    throw ex;
+                }
+                log.warn("Usernames taken concurrently during bulk creation, attempt {}", attempt);
+                rejectExisting(accepted, errors);
+            }
+        }
+
+        errors.sort(Comparator.comparingInt(BulkItemErrorDto::index));
+        log.debug("Bulk created {} users, rejected {}", createdIds.size(), errors.size());
+        return new BulkCreateResultDto(createdIds, errors);
+    }
+
+    private void rejectExisting(Map<String, Integer> accepted, List<BulkItemErrorDto> errors) {
+        List<String> usernames = accepted.keySet().stream()
+                .filter(usernameFilter::mightContain)
+                .toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < usernames.size(); from += LOOKUP_CHUNK_SIZE) {
+            existing.addAll(userRepository.findExistingUsernames(
+                    usernames.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, usernames.size()))));
+        }
+        for (String username : existing) {
+            Integer index = accepted.remove(username);
+            if (index != null) {
+                errors.add(new BulkItemErrorDto(index, List.of("username: already exists")));
+            }
+        }
+    }
+
+    private List<String> validate(UserCreateDto userCreateDto) {
+        if (userCreateDto == null) {
+            return List.of("user: must not be null");
+        }
+        return validator.validate(userCreateDto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+}
@@ -1,85 +1,199 @@
 package com.mk.todotasksh2.service;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.aop.RetryOnConflict;
+import com.mk.todotasksh2.dto.CursorPage;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskCountView;
 import com.mk.todotasksh2.dto.UserCreateDto;
 import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.dto.UserTasksDto;
-import com.mk.todotasksh2.mapper.TasksMapper;
 import com.mk.todotasksh2.mapper.UsersMapper;
 import com.mk.todotasksh2.model.Role;
-import com.mk.todotasksh2.model.Task;
 import com.mk.todotasksh2.model.TaskState;
 import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.TasksRepository;
 import com.mk.todotasksh2.repository.UserRepository;
+import com.mk.todotasksh2.sequrity.AccessTokenService;
+import com.mk.todotasksh2.sequrity.AuthenticationCache;
 import com.mk.todotasksh2.sequrity.AppUserDetails;
+import com.mk.todotasksh2.util.CursorCodec;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
+@Transactional
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final String USERNAME_CONSTRAINT = "uk_users_username";
+
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    static final Set<TaskState> KEPT_TASK_STATES =
+            EnumSet.of(TaskState.PLANNED, TaskState.DONE, TaskState.CANCELLED);
 
     private final UserRepository userRepository;
 
+    private final TasksRepository tasksRepository;
+
     private final UsersMapper usersMapper;
 
-    private final TasksMapper tasksMapper;
+    private final AuthenticationCache authenticationCache;
+
+    private final AccessTokenService accessTokenService;
+
+    private final ResourceRevisions resourceRevisions;
 
+    private final SyncRevisions syncRevisions;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
+    private final UsernameFilter usernameFilter;
+
+    @Transactional(readOnly = true)
     public List<UserDto> findAllUsers(Pageable pageable) {
-        return usersMapper.toListUserDto(userRepository.findAll(pageable).getContent());
+        return userRepository.findAllUserDtos(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> findUsersAfter(String after, int size) {
+        long afterId = after.isEmpty() ? 0L : CursorCodec.decode(after, keys -> Long.parseLong(keys[0]));
+        Slice<UserDto> slice = userRepository.findSliceByIdAfter(afterId, PageRequest.of(0, size));
+        List<UserDto> users = slice.getContent();
+        String nextCursor = slice.hasNext() ? CursorCodec.encode(users.getLast().id()) : null;
+        return new CursorPage<>(users, nextCursor);
     }
 
+    @Transactional(readOnly = true)
     public List<UserTasksDto> findUserTasks(long id) {
-        return tasksMapper.toListUserTasksDto(findById(id).getTasks());
+        List<UserTasksDto> tasks = tasksRepository.findUserTasksDtosByUserId(id);
+        if (tasks.isEmpty() && !userRepository.existsById(id)) {
+            log.error("User ID: {} not found", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "error.users.NotFound.message");
+        }
+        return tasks;
+    }
+
+    @Transactional(readOnly = true)
+    public String findUserETag(long id) {
+        return userRepository.findVersionById(id)
+                .map(version -> "user-" + version)
+                .orElseThrow(() -> {
+                    log.error("User ID: {} not found", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.users.NotFound.message");
+                });
+    }
+
+    public String findUsersETag() {
+        return "users-" + resourceRevisions.current(ResourceRevisions.Resource.USERS);
     }
 
+    public String findUserTasksETag(long id) {
+        return "user-" + id + "-tasks-" + resourceRevisions.current(ResourceRevisions.Resource.TASKS);
+    }
+
+    @Transactional(readOnly = true)
     public UserDto findUserById(long id) {
-        return usersMapper.toUserDto(findById(id));
+        return userRepository.findUserDtoById(id)
+                .orElseThrow(() -> {
+                    log.error("User ID: {} not found", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.users.NotFound.message");
+                });
     }
 
     public UserDto createUser(UserCreateDto userCreateDto) {
-        if (userRepository.findByUsername(userCreateDto.username()).isPresent()) {
+        User user = usersMapper.userCreateDtoToUser(userCreateDto);
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isUsernameConflict(ex)) {
+                throw ex;
+            }
             log.error("Username {} already exists", userCreateDto.username());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "error.users.Username.message");
         }
-        User user = usersMapper.userCreateDtoToUser(userCreateDto);
-        User savedUser = userRepository.save(user);
+        resourceRevisions.changed(ResourceRevisions.Resource.USERS);
 
         return usersMapper.toUserDto(savedUser);
     }
 
+    public List<Long> saveUsers(List<User> users) {
+        List<Long> createdIds = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += BULK_CHUNK_SIZE) {
+            List<User> chunk = users.subList(from, Math.min(from + BULK_CHUNK_SIZE, users.size()));
+            userRepository.saveAll(chunk);
+            userRepository.flush();
+            chunk.forEach(user -> createdIds.add(user.getId()));
+            entityManager.clear();
+        }
+        if (!createdIds.isEmpty()) {
+            resourceRevisions.changed(ResourceRevisions.Resource.USERS);
+        }
+        log.debug("Saved {} users", createdIds.size());
+        return createdIds;
+    }
+
+    static boolean isUsernameConflict(DataIntegrityViolationException ex) {
+        return ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase().contains(USERNAME_CONSTRAINT);
+    }
+
+    @RetryOnConflict
     public UserDto changeUserRole(Long id, Role role) {
         User user = findById(id);
         if (user.getRole() != role) {
             user.setRole(role);
             userRepository.save(user);
+            authenticationCache.evictUser(id);
+            accessTokenService.revokeUser(id);
+            resourceRevisions.changed(ResourceRevisions.Resource.USERS, ResourceRevisions.Resource.TASKS);
         }
         return usersMapper.toUserDto(user);
     }
 
     public void deleteUser(Long id) {
-        User user = findById(id);
-        List<Task> tasks = user.getTasks();
-        installDefaultTaskState(tasks);
-        userRepository.delete(user);
-    }
-
-    private static void installDefaultTaskState(List<Task> tasks) {
-        for (Task task : tasks) {
-            var state = task.getState();
-            if (!(state == TaskState.DONE || state == TaskState.CANCELLED)) {
-                task.setState(TaskState.PLANNED);
-            }
+        Map<TaskState, Long> releasedByState = new HashMap<>();
+        for (TaskCountView<TaskState> count : tasksRepository.countGroupedByStateOfUser(id)) {
+            releasedByState.put(count.key(), count.count());
+        }
+        int releasedTasks = tasksRepository.releaseTasksOfUser(id, KEPT_TASK_STATES, TaskState.PLANNED,
+                syncRevisions.next());
+        if (userRepository.deleteUserById(id) == 0) {
+            log.error("User ID: {} not found", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "error.users.NotFound.message");
         }
+        authenticationCache.evictUser(id);
+        accessTokenService.revokeUser(id);
+        resourceRevisions.changed(ResourceRevisions.Resource.USERS, ResourceRevisions.Resource.TASKS);
+        eventPublisher.publishEvent(TaskChangeEvent.userRemoved(id, releasedByState));
+        log.debug("User ID: {} deleted, {} tasks released", id, releasedTasks);
     }
 
     protected User findById(long id) {
@@ -91,12 +205,29 @@ public class UserService implements UserDetailsService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .map(user -> new AppUserDetails(user))
+        if (!usernameFilter.mightContain(username)) {
+            log.error("User not found: {}", username);
+            throw new UsernameNotFoundException("Failed to retrieve user:" + username);
+        }
+        return userRepository.findPrincipalByUsername(username)
                 .orElseThrow(() -> {
                     log.error("User not found: {}", username);
+                    usernameFilter.recordFalsePositive();
                     return new UsernameNotFoundException("Failed to retrieve user:" + username);
                 });
     }
+
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> {
+                    log.error("User not found: {}", userDetails.getUsername());
+                    return new UsernameNotFoundException("Failed to retrieve user:" + userDetails.getUsername());
+                });
+        user.setPassword(newPassword);
+        log.info("Password hash of user ID: {} upgraded", user.getId());
+        return new AppUserDetails(user.getId(), user.getUsername(), newPassword, user.getRole());
+    }
 }
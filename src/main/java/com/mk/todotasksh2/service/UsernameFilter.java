@@ -0,0 +1,226 @@
+package com.mk.todotasksh2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskChangeType;
+import com.mk.todotasksh2.dto.UserDto;
+import com.mk.todotasksh2.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+
+    private final long expectedUsers;
+
+    private final double falsePositiveRate;
+
+    private final Counter skippedLookups;
+
+    private final Counter falsePositives;
+
+    private final Object lock = new Object();
+
+    private final AtomicLong pendingRemovals = new AtomicLong();
+
+    private volatile Bits bits;
+
+    private Bits building;
+
+    public UsernameFilter(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.username-filter.expected-users:100000}") long expectedUsers,
+                          @Value("${app.security.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.skippedLookups = Counter.builder("users.username-filter.skipped").register(meterRegistry);
+        this.falsePositives = Counter.builder("users.username-filter.false-positives").register(meterRegistry);
+        Gauge.builder("users.username-filter.size", this, filter -> filter.bits == null ? 0 : filter.bits.entries.get())
+                .register(meterRegistry);
+        Gauge.builder("users.username-filter.bits", this, filter -> filter.bits == null ? 0 : filter.bits.size)
+                .register(meterRegistry);
+        Gauge.builder("users.username-filter.false-positive-rate", this,
+                        filter -> filter.bits == null ? 1 : filter.bits.falsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    public boolean mightContain(String username) {
+        Bits current = bits;
+        if (current == null || username == null || current.mightContain(username)) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public void add(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(username);
+                }
+            });
+        } else {
+            put(username);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        if (event.type() == TaskChangeType.USER_REMOVED) {
+            pendingRemovals.incrementAndGet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long removals = pendingRemovals.get();
+        long loaded = 0;
+        synchronized (lock) {
+            Bits current = bits;
+            building = new Bits(Math.max(expectedUsers, current == null ? 0 : 2 * current.entries.get()),
+                    falsePositiveRate);
+        }
+        try {
+            long afterId = 0;
+            Slice<UserDto> slice;
+            do {
+                slice = userRepository.findSliceByIdAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                synchronized (lock) {
+                    slice.forEach(user -> building.add(user.username()));
+                }
+                if (slice.hasContent()) {
+                    afterId = slice.getContent().getLast().id();
+                    loaded += slice.getNumberOfElements();
+                }
+            } while (slice.hasNext());
+            synchronized (lock) {
+                bits = building;
+            }
+        } finally {
+            synchronized (lock) {
+                building = null;
+            }
+        }
+        pendingRemovals.addAndGet(-removals);
+        log.info("Username filter built from {} users, {} bits, estimated false positive rate {}",
+                loaded, bits.size, bits.falsePositiveRate());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.username-filter.rebuild-interval:PT10M}",
+            initialDelayString = "${app.security.username-filter.rebuild-interval:PT10M}")
+    public void reconcile() {
+        Bits current = bits;
+        if (current == null) {
+            return;
+        }
+        if (pendingRemovals.get() > 0 || current.entries.get() > current.capacity) {
+            log.debug("Rebuilding username filter: {} users removed, {} of {} entries used",
+                    pendingRemovals.get(), current.entries.get(), current.capacity);
+            rebuild();
+        }
+    }
+
+    private void put(String username) {
+        synchronized (lock) {
+            if (bits != null) {
+                bits.add(username);
+            }
+            if (building != null) {
+                building.add(username);
+            }
+        }
+    }
+
+    private static long hash(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            hash = (hash ^ username.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Bits {
+
+        private final long capacity;
+
+        private final long size;
+
+        private final int hashes;
+
+        private final AtomicLongArray words;
+
+        private final AtomicLong entries = new AtomicLong();
+
+        private final AtomicLong setBits = new AtomicLong();
+
+        private Bits(long capacity, double falsePositiveRate) {
+            this.capacity = Math.max(capacity, 1);
+            long wanted = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.min((wanted + 63) / 64, Integer.MAX_VALUE / 2));
+            this.size = 64L * words.length();
+            this.hashes = Math.max(1, (int) Math.round((double) size / this.capacity * Math.log(2)));
+        }
+
+        void add(String username) {
+            long first = mix(hash(username));
+            long second = mix(first) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(first + i * second, size);
+                long mask = 1L << bit;
+                long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+                if ((previous & mask) == 0) {
+                    setBits.incrementAndGet();
+                }
+            }
+            entries.incrementAndGet();
+        }
+
+        boolean mightContain(String username) {
+            long first = mix(hash(username));
+            long second = mix(first) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(first + i * second, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double falsePositiveRate() {
+            return Math.pow((double) setBits.get() / size, hashes);
+        }
+    }
+}
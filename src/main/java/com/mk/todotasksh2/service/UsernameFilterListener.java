@@ -0,0 +1,17 @@
+package com.mk.todotasksh2.service;
+
+import jakarta.persistence.PostPersist;
+import lombok.RequiredArgsConstructor;
+import com.mk.todotasksh2.model.User;
+import org.springframework.beans.factory.ObjectProvider;
+
+@RequiredArgsConstructor
+public class UsernameFilterListener {
+
+    private final ObjectProvider<UsernameFilter> usernameFilter;
+
+    @PostPersist
+    public void onPersist(User user) {
+        usernameFilter.ifAvailable(filter -> filter.add(user.getUsername()));
+    }
+}
@@ -0,0 +1,156 @@
+package com.mk.todotasksh2.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class RecordReader {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+
+    private final int maxRecordLength;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private int pending = EOF;
+
+    public RecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    public String nextLine() throws IOException {
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+        recordLine = line;
+        StringBuilder record = new StringBuilder();
+        while (c != '\n' && c != '\r' && c != EOF) {
+            if (record.length() == maxRecordLength) {
+                skipLine(c);
+                throw new MalformedRecordException("record is longer than " + maxRecordLength + " characters");
+            }
+            record.append((char) c);
+            c = read();
+        }
+        if (c == '\r') {
+            skipLineFeed();
+        }
+        return record.toString();
+    }
+
+    public List<String> nextCsv() throws IOException {
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordLength) {
+                skipRecord(c, quoted);
+                throw new MalformedRecordException("record is longer than " + maxRecordLength + " characters");
+            }
+            if (quoted) {
+                if (c == EOF) {
+                    throw new MalformedRecordException("unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == EOF) {
+                if (c == '\r') {
+                    skipLineFeed();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private void skipRecord(int c, boolean quoted) throws IOException {
+        while (c != EOF && (quoted || c != '\n' && c != '\r')) {
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            skipLineFeed();
+        }
+    }
+
+    private void skipLine(int c) throws IOException {
+        while (c != EOF && c != '\n' && c != '\r') {
+            c = read();
+        }
+        if (c == '\r') {
+            skipLineFeed();
+        }
+    }
+
+    private void skipLineFeed() throws IOException {
+        int following = read();
+        if (following != '\n') {
+            unread(following);
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pending != EOF) {
+            c = pending;
+            pending = EOF;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c == '\n') {
+            line--;
+        }
+        pending = c;
+    }
+
+    public static class MalformedRecordException extends IOException {
+
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,16 +1,15 @@
-INSERT INTO users(username, password, role)
-VALUES ('admin@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'a'),
-       ('user-1@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
-       ('user-2@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
-       ('user-3@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
-       ('user-4@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
-       ('user-5@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u');
-
-INSERT INTO tasks(description, deadline, state, user_id)
-VALUES ('task1', '2024-12-12', 'pl', 3),
-       ('task2', '2024-11-06', 'pl', 2),
-       ('task3', '2024-10-15', 'pl', 3),
-       ('task4', '2024-12-23', 'pl', 5),
-       ('task5', '2024-10-09', 'pl', 4),
-       ('task6', '2024-10-01', 'pl', 2);
+INSERT INTO users(id, username, password, role)
+VALUES (1, 'admin@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'a'),
+       (2, 'user-1@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
+       (3, 'user-2@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
+       (4, 'user-3@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
+       (5, 'user-4@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u'),
+       (6, 'user-5@gmail.com', '{bcrypt}$2a$10$0qcGtERuEqK60aMk/Tl2cuKmV1CSy8.MRuZ0fXxGoV3LfRgo25IxG', 'u');
 
+INSERT INTO tasks(id, description, deadline, state, user_id)
+VALUES (1, 'task1', '2024-12-12', 'pl', 3),
+       (2, 'task2', '2024-11-06', 'pl', 2),
+       (3, 'task3', '2024-10-15', 'pl', 3),
+       (4, 'task4', '2024-12-23', 'pl', 5),
+       (5, 'task5', '2024-10-09', 'pl', 4),
+       (6, 'task6', '2024-10-01', 'pl', 2);
@@ -1,16 +1,46 @@
+CREATE SEQUENCE users_seq START WITH 101 INCREMENT BY 50;
+
+CREATE SEQUENCE tasks_seq START WITH 101 INCREMENT BY 50;
+
 CREATE TABLE users
 (
-    id       BIGSERIAL PRIMARY KEY,
-    username VARCHAR(64) UNIQUE NOT NULL,
+    id       BIGINT DEFAULT NEXT VALUE FOR users_seq PRIMARY KEY,
+    username VARCHAR(64)        NOT NULL,
     password VARCHAR(128)       NOT NULL,
-    role     varchar(16)
+    role     varchar(16),
+    version  BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username)
 );
 
 CREATE TABLE tasks
 (
-    id          BIGSERIAL PRIMARY KEY,
+    id          BIGINT DEFAULT NEXT VALUE FOR tasks_seq PRIMARY KEY,
     description VARCHAR(256) NOT NULL,
     deadline    DATE,
     state       VARCHAR(32),
-    user_id     BIGINT       REFERENCES users (id) ON DELETE SET NULL
+    user_id     BIGINT       REFERENCES users (id) ON DELETE SET NULL,
+    version     BIGINT       DEFAULT 0 NOT NULL,
+    revision    BIGINT       DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_tasks_revision ON tasks (revision);
+
+CREATE INDEX idx_tasks_deadline ON tasks (deadline, id);
+
+CREATE INDEX idx_tasks_user_state ON tasks (user_id, state);
+
+CREATE INDEX idx_tasks_state_deadline ON tasks (state, deadline);
+
+CREATE TABLE task_tombstones
+(
+    task_id  BIGINT PRIMARY KEY,
+    revision BIGINT NOT NULL
+);
+
+CREATE INDEX idx_task_tombstones_revision ON task_tombstones (revision);
+
+CREATE TABLE job_runs
+(
+    name     VARCHAR(64) PRIMARY KEY,
+    last_run DATE        NOT NULL
 );
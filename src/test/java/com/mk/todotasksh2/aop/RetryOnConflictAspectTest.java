@@ -0,0 +1,69 @@
+package com.mk.todotasksh2.aop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryOnConflictAspectTest {
+
+    private ConflictingOperation target;
+
+    private ConflictingOperation proxy;
+
+    @BeforeEach
+    void setUp() {
+        target = new ConflictingOperation();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RetryOnConflictAspect());
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void testRetriesUntilOperationSucceeds() {
+        target.failures = 2;
+
+        assertThat(proxy.update()).isEqualTo("updated");
+        assertThat(target.calls).isEqualTo(3);
+    }
+
+    @Test
+    void testRethrowsConflictAfterMaxAttempts() {
+        target.failures = 5;
+
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy.update());
+        assertThat(target.calls).isEqualTo(3);
+    }
+
+    @Test
+    void testDoesNotRetryOtherExceptions() {
+        assertThrows(IllegalStateException.class, () -> proxy.fail());
+        assertThat(target.calls).isEqualTo(1);
+    }
+
+    static class ConflictingOperation {
+
+        int failures;
+
+        int calls;
+
+        @RetryOnConflict(backoffMillis = 0)
+        public String update() {
+            calls++;
+            if (calls <= failures) {
+                throw new OptimisticLockingFailureException("Row was updated");
+            }
+            return "updated";
+        }
+
+        @RetryOnConflict(backoffMillis = 0)
+        public String fail() {
+            calls++;
+            throw new IllegalStateException("failed");
+        }
+    }
+}
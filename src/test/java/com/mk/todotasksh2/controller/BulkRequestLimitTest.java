@@ -0,0 +1,67 @@
+package com.mk.todotasksh2.controller;
+
+import com.mk.todotasksh2.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.bulk.max-items=2")
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class BulkRequestLimitTest {
+
+    private static final String TASK = "{\"description\":\"Bulk task\",\"deadline\":\"2099-01-01\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void createTasks_aboveLimit_shouldBeRejected() throws Exception {
+        mockMvc.perform(post("/api/tasks/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + TASK + "," + TASK + "," + TASK + "]"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.message[0]")
+                        .value("Too many items in one bulk request, split it into smaller batches."));
+    }
+
+    @Test
+    void createTasks_atLimit_shouldBeAccepted() throws Exception {
+        mockMvc.perform(post("/api/tasks/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + TASK + "," + TASK + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.createdIds.length()").value(2));
+    }
+
+    @Test
+    void editStates_aboveLimit_shouldBeRejected() throws Exception {
+        mockMvc.perform(patch("/api/tasks/state").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1,\"state\":\"WORK_IN_PROGRESS\"}," +
+                                "{\"id\":2,\"state\":\"WORK_IN_PROGRESS\"}," +
+                                "{\"id\":3,\"state\":\"WORK_IN_PROGRESS\"}]"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void createUsers_aboveLimit_shouldBeRejectedBeforeHashing() throws Exception {
+        mockMvc.perform(post("/api/users/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\":\"bulk-1@gmail.com\",\"password\":\"secret\"}," +
+                                "{\"username\":\"bulk-2@gmail.com\",\"password\":\"secret\"}," +
+                                "{\"username\":\"bulk-3@gmail.com\",\"password\":\"secret\"}]"))
+                .andExpect(status().isPayloadTooLarge());
+
+        assertThat(userRepository.findByUsername("bulk-1@gmail.com")).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mk.todotasksh2.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.jpa.statistics-enabled=true")
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findTaskById_withMatchingETag_shouldReturnNotModifiedWithoutLoadingTask() throws Exception {
+        String eTag = eTagOf("/api/tasks/2");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/tasks/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void findTaskById_afterEdit_shouldReturnNewRepresentation() throws Exception {
+        String eTag = eTagOf("/api/tasks/3");
+
+        mockMvc.perform(patch("/api/tasks/3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"Edited task\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/tasks/3").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    void findAllTasks_withMatchingETag_shouldNotQueryDatabase() throws Exception {
+        String eTag = eTagOf("/api/tasks");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/tasks").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void findUserById_withMatchingETag_shouldReturnNotModified() throws Exception {
+        String eTag = eTagOf("/api/users/2");
+
+        mockMvc.perform(get("/api/users/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void findUserTasks_afterTaskChange_shouldReturnNewRepresentation() throws Exception {
+        String eTag = eTagOf("/api/users/4/tasks");
+
+        mockMvc.perform(patch("/api/tasks/4/users/4")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/4/tasks").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findAllTasks_afterAssigneeRoleChange_shouldReturnNewRepresentation() throws Exception {
+        String eTag = eTagOf("/api/tasks");
+
+        try {
+            changeRole(3, "ADMIN");
+
+            mockMvc.perform(get("/api/tasks").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isOk());
+        } finally {
+            changeRole(3, "USER");
+        }
+    }
+
+    private void changeRole(long userId, String role) throws Exception {
+        mockMvc.perform(patch("/api/users/" + userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"" + role + "\""))
+                .andExpect(status().isOk());
+    }
+
+    private String eTagOf(String url) throws Exception {
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotBlank();
+        return eTag;
+    }
+}
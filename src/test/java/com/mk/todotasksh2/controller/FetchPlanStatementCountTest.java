@@ -0,0 +1,74 @@
+package com.mk.todotasksh2.controller;
+
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.jpa.statistics-enabled=true")
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class FetchPlanStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "/api/tasks, 1",
+            "/api/tasks?after=, 1",
+            "/api/tasks/1, 2",
+            "/api/tasks/1/users, 1",
+            "/api/users, 1",
+            "/api/users?after=, 1",
+            "/api/users/2, 2",
+            "/api/users/3/tasks, 1"
+    })
+    void readEndpoint_shouldStayWithinStatementBudget(String url, long maxStatements) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(maxStatements);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void findAllUsers_shouldNotHydrateTasks() throws Exception {
+        mockMvc.perform(get("/api/users")).andExpect(status().isOk());
+
+        assertThat(statistics.getEntityStatistics(Task.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    void findAllTasks_shouldNotHydrateTasksOfAssignees() throws Exception {
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount())
+                .isLessThanOrEqualTo(statistics.getEntityStatistics(Task.class.getName()).getLoadCount());
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+}
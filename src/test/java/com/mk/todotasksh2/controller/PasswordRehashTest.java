@@ -0,0 +1,50 @@
+package com.mk.todotasksh2.controller;
+
+import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.security.auth-cache.ttl=0s")
+@AutoConfigureMockMvc
+class PasswordRehashTest {
+
+    private static final String USERNAME = "rehash-test@gmail.com";
+
+    private static final String PASSWORD = "rehash-test-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void login_withWeakerHash_shouldUpgradeStoredHash() throws Exception {
+        String weakHash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+        userRepository.save(User.builder().username(USERNAME).password(weakHash).role(Role.USER).build());
+        assertThat(passwordEncoder.upgradeEncoding(weakHash)).isTrue();
+
+        mockMvc.perform(get("/api/tasks").with(httpBasic(USERNAME, PASSWORD))).andExpect(status().isOk());
+
+        String storedHash = userRepository.findByUsername(USERNAME).orElseThrow().getPassword();
+        assertThat(storedHash).isNotEqualTo(weakHash);
+        assertThat(passwordEncoder.upgradeEncoding(storedHash)).isFalse();
+        assertThat(passwordEncoder.matches(PASSWORD, storedHash)).isTrue();
+        mockMvc.perform(get("/api/tasks").with(httpBasic(USERNAME, PASSWORD))).andExpect(status().isOk());
+    }
+}
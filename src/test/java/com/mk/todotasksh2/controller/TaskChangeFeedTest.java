@@ -0,0 +1,111 @@
+package com.mk.todotasksh2.controller;
+
+import com.mk.todotasksh2.dto.TaskUpdateDto;
+import com.mk.todotasksh2.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class TaskChangeFeedTest {
+
+    private static final Pattern RESYNC = Pattern.compile("event:resync\\ndata:\\n\\n");
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void committedChange_shouldBeStreamedToSubscriber() throws Exception {
+        MvcResult subscription = subscribe(null);
+
+        taskService.editTask(6L, new TaskUpdateDto("Streamed task", null));
+
+        awaitEvent(subscription.getResponse(), event("updated", 6));
+    }
+
+    @Test
+    void rolledBackChange_shouldNotBeStreamed() throws Exception {
+        MvcResult subscription = subscribe(null);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.editTask(5L, new TaskUpdateDto("Rolled back task", null));
+            status.setRollbackOnly();
+        });
+        taskService.deleteUserFromTask(5L);
+
+        awaitEvent(subscription.getResponse(), event("unassigned", 5));
+        assertThat(subscription.getResponse().getContentAsString()).doesNotContain("event:updated");
+    }
+
+    @Test
+    void reconnectWithLastEventId_shouldReplayMissedChanges() throws Exception {
+        MvcResult first = subscribe(null);
+        taskService.editTask(6L, new TaskUpdateDto("Before reconnect", null));
+        Matcher matcher = awaitEvent(first.getResponse(), event("updated", 6));
+        long lastEventId = Long.parseLong(matcher.group(1));
+
+        taskService.deleteUserFromTask(6L);
+        MvcResult resumed = subscribe(String.valueOf(lastEventId));
+
+        awaitEvent(resumed.getResponse(), event("unassigned", 6));
+        assertThat(resumed.getResponse().getContentAsString())
+                .contains("id:" + (lastEventId + 1))
+                .doesNotContain("id:" + lastEventId + "\n");
+    }
+
+    @Test
+    void reconnectWithUnknownLastEventId_shouldRequestResync() throws Exception {
+        MvcResult subscription = subscribe("1");
+
+        awaitEvent(subscription.getResponse(), RESYNC);
+        assertThat(subscription.getResponse().getContentAsString()).doesNotContain("event:updated");
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var subscription = get("/api/tasks/changes");
+        if (lastEventId != null) {
+            subscription.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(subscription).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static Pattern event(String name, long taskId) {
+        return Pattern.compile("id:(\\d+)\\nevent:" + name + "\\ndata:\\{[^}]*\"taskId\":" + taskId + "[,}][^\\n]*\\n\\n");
+    }
+
+    private static Matcher awaitEvent(MockHttpServletResponse response, Pattern expected) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        Matcher matcher = expected.matcher(response.getContentAsString());
+        boolean found = matcher.find();
+        while (!found && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            matcher = expected.matcher(response.getContentAsString());
+            found = matcher.find();
+        }
+        assertThat(found).as("event matching %s in %s", expected, response.getContentAsString()).isTrue();
+        return matcher;
+    }
+}
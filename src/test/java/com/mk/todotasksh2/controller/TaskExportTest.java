@@ -0,0 +1,115 @@
+package com.mk.todotasksh2.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mk.todotasksh2.dto.TaskFileFormat;
+import com.mk.todotasksh2.repository.TasksRepository;
+import com.mk.todotasksh2.service.TaskExporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class TaskExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TasksRepository tasksRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportNdjson_shouldStreamOneJsonObjectPerTask() throws Exception {
+        long tasks = tasksRepository.count();
+
+        List<String> lines = export("NDJSON");
+
+        assertThat(lines).hasSize((int) tasks);
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode task = objectMapper.readTree(line);
+            assertThat(task.get("id").asLong()).isGreaterThan(previousId);
+            assertThat(task.get("description").asText()).isNotEmpty();
+            previousId = task.get("id").asLong();
+        }
+    }
+
+    @Test
+    void exportCsv_shouldStreamHeaderAndOneRowPerTask() throws Exception {
+        long tasks = tasksRepository.count();
+
+        List<String> lines = export("CSV");
+
+        assertThat(lines).hasSize((int) tasks + 1);
+        assertThat(lines.getFirst()).isEqualTo("id,description,deadline,state,user_id,username,role");
+        assertThat(lines.subList(1, lines.size())).allMatch(line -> line.matches("\\d+,.*"));
+    }
+
+    @Test
+    void export_whenClientDisconnects_shouldCloseTaskStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        TasksRepository recordingRepository = mock(TasksRepository.class);
+        when(recordingRepository.streamAllTaskDtos())
+                .thenAnswer(invocation -> tasksRepository.streamAllTaskDtos().onClose(() -> closed.set(true)));
+        TaskExporter taskExporter = new TaskExporter(recordingRepository, objectMapper);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        transactionTemplate.executeWithoutResult(status ->
+                assertThrows(IOException.class, () -> taskExporter.export(TaskFileFormat.NDJSON, disconnected)));
+
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    @WithUserDetails("user-1@gmail.com")
+    void export_byNonAdmin_shouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/tasks/export")).andExpect(status().isForbidden());
+    }
+
+    private List<String> export(String format) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/tasks/export").param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"tasks." +
+                        format.toLowerCase() + "\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return content.lines().toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mk.todotasksh2.controller;
+
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.tasks.import.chunk-size=2")
+@AutoConfigureMockMvc
+@WithUserDetails("admin@gmail.com")
+class TaskImportTest {
+
+    private static final String DEADLINE = LocalDate.now().plusDays(10).toString();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Test
+    void importNdjson_shouldSaveValidLinesAndReportInvalidOnes() throws Exception {
+        String body = String.join("\n",
+                "{\"description\":\"Imported json 1\",\"deadline\":\"" + DEADLINE + "\"}",
+                "{\"description\":\"\",\"deadline\":\"" + DEADLINE + "\"}",
+                "",
+                "{\"description\":\"Imported json 2\",\"deadline\":\"" + DEADLINE + "\",\"username\":\"user-2@gmail.com\"}",
+                "{\"description\":\"Imported json 3\",\"deadline\":\"" + DEADLINE + "\",\"username\":\"nobody@gmail.com\"}",
+                "{not json",
+                "{\"description\":\"Imported json 4\",\"deadline\":\"" + DEADLINE + "\"}");
+
+        mockMvc.perform(post("/api/tasks/import").param("format", "NDJSON")
+                        .contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[*].line", contains(2, 5, 6)));
+
+        assertThat(taskService.findAllTasks(new TaskFilter(null, 3L, null, null, false), Pageable.unpaged()))
+                .extracting(TaskDto::description)
+                .contains("Imported json 2");
+    }
+
+    @Test
+    void importCsv_shouldMapColumnsByHeader() throws Exception {
+        String body = "username,deadline,description\n" +
+                "user-1@gmail.com," + DEADLINE + ",\"Imported, csv 1\"\n" +
+                "," + DEADLINE + ",Imported csv 2\n" +
+                ",not-a-date,Imported csv 3\n";
+
+        mockMvc.perform(post("/api/tasks/import").param("format", "CSV")
+                        .contentType(MediaType.parseMediaType("text/csv")).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(4));
+
+        assertThat(taskService.findAllTasks(new TaskFilter(null, 2L, null, null, false), Pageable.unpaged()))
+                .extracting(TaskDto::description)
+                .contains("Imported, csv 1");
+    }
+
+    @Test
+    void importCsv_withoutRequiredColumns_shouldBeRejected() throws Exception {
+        mockMvc.perform(post("/api/tasks/import").param("format", "CSV")
+                        .contentType(MediaType.parseMediaType("text/csv")).content("title,deadline\nTask,2030-01-01\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails("user-1@gmail.com")
+    void import_byNonAdmin_shouldBeForbidden() throws Exception {
+        mockMvc.perform(post("/api/tasks/import").contentType("application/x-ndjson").content("{}"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,134 @@
+package com.mk.todotasksh2.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mk.todotasksh2.dto.AccessTokenDto;
+import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "app.jpa.statistics-enabled=true",
+        "app.security.auth-cache.ttl=0s"
+})
+@AutoConfigureMockMvc
+class TokenAuthenticationLoadTest {
+
+    private static final int REQUESTS = 50;
+
+    private static final String USERNAME = "load-test@gmail.com";
+
+    private static final String PASSWORD = "load-test-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .password(passwordEncoder.encode(PASSWORD))
+                    .role(Role.USER)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername(USERNAME).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void bearerToken_shouldSkipUserLookup() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/tasks").with(httpBasic(USERNAME, PASSWORD))).andExpect(status().isOk());
+        }
+        long basicStatements = statistics.getPrepareStatementCount();
+
+        String body = mockMvc.perform(post("/api/auth/token").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readValue(body, AccessTokenDto.class).accessToken();
+
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+        long bearerStatements = statistics.getPrepareStatementCount();
+
+        log.info("{} requests: basic {} statements, bearer {} statements", REQUESTS, basicStatements, bearerStatements);
+
+        assertThat(bearerStatements).isEqualTo(REQUESTS);
+        assertThat(basicStatements).isGreaterThan(bearerStatements);
+    }
+
+    @Test
+    void tokenEndpoint_forUserWithoutRole_shouldIssueTokenWithoutAuthorities() throws Exception {
+        User user = userRepository.save(User.builder()
+                .username("no-role@gmail.com")
+                .password(passwordEncoder.encode(PASSWORD))
+                .build());
+        try {
+            String body = mockMvc.perform(post("/api/auth/token").with(httpBasic("no-role@gmail.com", PASSWORD)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String token = objectMapper.readValue(body, AccessTokenDto.class).accessToken();
+
+            mockMvc.perform(get("/api/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/tasks/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        } finally {
+            userRepository.delete(user);
+        }
+    }
+
+    @Test
+    void invalidBearerToken_shouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/tasks/1").header(HttpHeaders.AUTHORIZATION, "Bearer forged.token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tokenEndpoint_shouldNotAcceptBearerToken() throws Exception {
+        mockMvc.perform(post("/api/auth/token").header(HttpHeaders.AUTHORIZATION, "Bearer forged.token"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -132,4 +133,15 @@ class ControllerExceptionHandlerTest {
         assertNotNull(responseEntity.getBody());
     }
 
-}
\ No newline at end of file
+    @Test
+    void handlerOptimisticLockingFailureException_ShouldReturnConflict() {
+        OptimisticLockingFailureException ex = new OptimisticLockingFailureException("Row was updated");
+        when(messageSource.getMessage(any(), any(), any())).thenReturn("Conflict");
+
+        ResponseEntity<ApiError> response = exceptionHandler.handlerOptimisticLockingFailureException(ex, webRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(Objects.requireNonNull(response.getBody()).message()).containsExactly("Conflict");
+        assertThat(response.getBody().status()).isEqualTo(409);
+    }
+}
@@ -28,4 +28,12 @@ class TaskStateTest {
 
         assertThat(exception.getBundle()).isEqualTo("error.tasks.State.message");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPredecessorsOf() {
+        assertThat(TaskState.predecessorsOf(TaskState.NOTIFIED))
+                .containsExactlyInAnyOrder(TaskState.WORK_IN_PROGRESS, TaskState.POSTPONED, TaskState.SIGNED);
+        assertThat(TaskState.predecessorsOf(TaskState.WORK_IN_PROGRESS)).containsExactly(TaskState.PLANNED);
+        assertThat(TaskState.predecessorsOf(TaskState.PLANNED)).isEmpty();
+    }
+}
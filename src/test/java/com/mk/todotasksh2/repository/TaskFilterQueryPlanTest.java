@@ -0,0 +1,93 @@
+package com.mk.todotasksh2.repository;
+
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.model.TaskState;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.mk.todotasksh2.repository.TaskFilterQueryPlanTest$CapturingStatementInspector")
+class TaskFilterQueryPlanTest {
+
+    @Autowired
+    private TasksRepository tasksRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @ParameterizedTest
+    @CsvSource({
+            "PLANNED, , , , false, STATE",
+            ", 2, , , false, USER_ID",
+            ", , , , true, USER_ID",
+            ", , 2024-01-01, , false, DEADLINE",
+            ", , , 2024-12-31, false, DEADLINE",
+            "PLANNED, 2, , , false, USER_ID",
+            "PLANNED, , , , true, USER_ID",
+            "PLANNED, , 2024-01-01, 2024-12-31, false, STATE",
+            ", 2, 2024-01-01, 2024-12-31, false, USER_ID",
+            ", , 2024-01-01, 2024-12-31, true, USER_ID",
+            "PLANNED, 2, 2024-01-01, 2024-12-31, false, USER_ID"
+    })
+    void findTaskDtos_shouldUseIndexForEachFilterCombination(TaskState state, Long userId, LocalDate deadlineFrom,
+                                                              LocalDate deadlineTo, boolean unassigned,
+                                                              String indexedColumn) throws SQLException {
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        tasksRepository.findTaskDtos(new TaskFilter(state, userId, deadlineFrom, deadlineTo, unassigned),
+                PageRequest.of(0, 20));
+
+        String sql = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.startsWith("select") && statement.contains(" from tasks "))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        List<Object> parameters = Stream.<Object>of(state == null ? null : state.name(), userId, deadlineFrom, deadlineTo)
+                .filter(Objects::nonNull)
+                .toList();
+        assertThat(explain(sql, parameters))
+                .doesNotContain("TASKS.tableScan")
+                .containsPattern("\"TASKS\" \"T1_0\"\\s+/\\* PUBLIC\\.\\w+: [^*]*\\b" + indexedColumn + " ");
+    }
+
+    private String explain(String sql, List<Object> parameters) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= count; i++) {
+                statement.setObject(i, i <= parameters.size() ? parameters.get(i - 1) : 20);
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
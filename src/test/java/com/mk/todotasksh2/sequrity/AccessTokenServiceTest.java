@@ -0,0 +1,134 @@
+package com.mk.todotasksh2.sequrity;
+
+import com.mk.todotasksh2.model.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessTokenServiceTest {
+
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    private static final Duration ROTATION = Duration.ofHours(6);
+
+    private MutableClock clock;
+
+    private TokenKeyRing keyRing;
+
+    private AccessTokenService accessTokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-10-10T10:00:00Z"));
+        keyRing = new TokenKeyRing(TTL, ROTATION, clock);
+        accessTokenService = new AccessTokenService(keyRing, TTL, clock);
+    }
+
+    @Test
+    void testIssuedTokenIsVerified() {
+        String token = accessTokenService.issue(3L, "user|2@gmail.com", Role.ADMIN);
+
+        assertThat(accessTokenService.verify(token))
+                .contains(new AccessTokenService.TokenClaims(3L, "user|2@gmail.com", Role.ADMIN));
+    }
+
+    @Test
+    void testTokenOfUserWithoutRoleKeepsMissingRole() {
+        String token = accessTokenService.issue(5L, "no-role@gmail.com", null);
+
+        assertThat(accessTokenService.verify(token))
+                .contains(new AccessTokenService.TokenClaims(5L, "no-role@gmail.com", null));
+    }
+
+    @Test
+    void testTamperedTokenIsRejected() {
+        String token = accessTokenService.issue(3L, "user-2@gmail.com", Role.USER);
+        String forged = accessTokenService.issue(3L, "user-2@gmail.com", Role.ADMIN);
+        String tampered = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThat(accessTokenService.verify(tampered)).isEmpty();
+        assertThat(accessTokenService.verify("not-a-token")).isEmpty();
+        assertThat(accessTokenService.verify("%%%.%%%")).isEmpty();
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        String token = accessTokenService.issue(3L, "user-2@gmail.com", Role.USER);
+
+        clock.advance(TTL.plusSeconds(1));
+
+        assertThat(accessTokenService.verify(token)).isEmpty();
+    }
+
+    @Test
+    void testRevokedUserTokensAreRejected() {
+        String revoked = accessTokenService.issue(3L, "user-2@gmail.com", Role.ADMIN);
+        String other = accessTokenService.issue(4L, "user-3@gmail.com", Role.USER);
+
+        accessTokenService.revokeUser(3L);
+        clock.advance(Duration.ofSeconds(1));
+        String reissued = accessTokenService.issue(3L, "user-2@gmail.com", Role.USER);
+
+        assertThat(accessTokenService.verify(revoked)).isEmpty();
+        assertThat(accessTokenService.verify(other)).isPresent();
+        assertThat(accessTokenService.verify(reissued))
+                .contains(new AccessTokenService.TokenClaims(3L, "user-2@gmail.com", Role.USER));
+    }
+
+    @Test
+    void testTokenSurvivesOneRotationButNotRetiredKey() {
+        String token = accessTokenService.issue(3L, "user-2@gmail.com", Role.USER);
+
+        clock.advance(Duration.ofMinutes(5));
+        keyRing.rotate();
+
+        assertThat(accessTokenService.verify(token)).isPresent();
+        assertThat(keyRing.current().id()).isNotEqualTo(keyIdOf(token));
+
+        clock.advance(ROTATION.plus(TTL));
+        keyRing.rotate();
+
+        assertThat(keyRing.find(keyIdOf(token))).isEmpty();
+    }
+
+    private static String keyIdOf(String token) {
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        return payload.substring(0, payload.indexOf('|'));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.mk.todotasksh2.sequrity;
+
+import com.mk.todotasksh2.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthenticationCache authenticationCache;
+
+    private CachingAuthenticationProvider provider;
+
+    private AppUserDetails principal;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authenticationCache = new AuthenticationCache(100, Duration.ofMinutes(5), meterRegistry);
+        provider = new CachingAuthenticationProvider(delegate, authenticationCache);
+        principal = new AppUserDetails(7L, "user@mail", "{bcrypt}hash", Role.USER);
+    }
+
+    @Test
+    void testRepeatedAuthenticationIsServedFromCache() {
+        when(delegate.authenticate(any())).thenReturn(authenticated());
+
+        provider.authenticate(request("user@mail", "secret"));
+        Authentication second = provider.authenticate(request("user@mail", "secret"));
+
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getPrincipal()).isEqualTo(principal.withoutPassword());
+        assertThat(second.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("USER");
+        verify(delegate, times(1)).authenticate(any());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "authentication").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testWrongPasswordIsNotServedFromCache() {
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated())
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        provider.authenticate(request("user@mail", "secret"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(request("user@mail", "guess")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void testEvictedUserIsAuthenticatedAgain() {
+        when(delegate.authenticate(any())).thenReturn(authenticated());
+
+        provider.authenticate(request("user@mail", "secret"));
+        authenticationCache.evictUser(7L);
+        provider.authenticate(request("user@mail", "secret"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private Authentication authenticated() {
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+
+    private static Authentication request(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
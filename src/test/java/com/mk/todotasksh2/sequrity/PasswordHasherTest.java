@@ -0,0 +1,131 @@
+package com.mk.todotasksh2.sequrity;
+
+import com.mk.todotasksh2.exeption.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PasswordHasherTest {
+
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHasher passwordHasher = new PasswordHasher(new RecordingEncoder(), 4, 64, 2, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void encodeAll_shouldKeepInputOrderAndHashOffCallerThread() {
+        List<String> rawPasswords = IntStream.range(0, 50).mapToObj(i -> "password" + i).toList();
+
+        List<String> hashes = passwordHasher.encodeAll(rawPasswords);
+
+        assertThat(hashes).isEqualTo(rawPasswords.stream().map(password -> "hashed:" + password).toList());
+        assertThat(threads).doesNotContain(Thread.currentThread().getName())
+                .allMatch(thread -> thread.startsWith("password-bulk-hashing-"));
+    }
+
+    @Test
+    @Timeout(10)
+    void encodeAll_whenLoginQueueIsFull_shouldNeitherBeRejectedNorTakeLoginCapacity() throws Exception {
+        passwordHasher.shutdown();
+        SimpleMeterRegistry sheddingRegistry = new SimpleMeterRegistry();
+        passwordHasher = new PasswordHasher(new RecordingEncoder(), 1, 1, 1, sheddingRegistry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.encode("block"));
+        started.await();
+        List<String> rawPasswords = IntStream.range(0, 20).mapToObj(i -> "password" + i).toList();
+
+        List<String> hashes = passwordHasher.encodeAll(rawPasswords);
+
+        assertThat(hashes).isEqualTo(rawPasswords.stream().map(password -> "hashed:" + password).toList());
+        assertThat(sheddingRegistry.get("password.hashing.rejected").counter().count()).isZero();
+        assertThat(sheddingRegistry.get("password.hashing.queue.size").gauge().value()).isZero();
+        release.countDown();
+        assertThat(running.join()).isEqualTo("hashed:block");
+    }
+
+    @Test
+    void matches_shouldVerifyOnHashingThread() {
+        assertThat(passwordHasher.matches("password", "hashed:password")).isTrue();
+        assertThat(passwordHasher.matches("password", "hashed:other")).isFalse();
+        assertThat(threads).allMatch(thread -> thread.startsWith("password-hashing-"));
+    }
+
+    @Test
+    @Timeout(10)
+    void encode_whenQueueIsFull_shouldShedLoad() throws Exception {
+        passwordHasher.shutdown();
+        SimpleMeterRegistry sheddingRegistry = new SimpleMeterRegistry();
+        passwordHasher = new PasswordHasher(new RecordingEncoder(), 1, 1, 1, sheddingRegistry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.encode("block"));
+        started.await();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.encode("queued"));
+        while (sheddingRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+            Thread.sleep(1);
+        }
+
+        var exception = assertThrows(PasswordHashingBusyException.class, () -> passwordHasher.encode("shed"));
+
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(sheddingRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+        assertThat(running.join()).isEqualTo("hashed:block");
+        assertThat(queued.join()).isEqualTo("hashed:queued");
+    }
+
+    @Test
+    void upgradeEncoding_shouldAskDelegateOnCallerThread() {
+        assertThat(passwordHasher.upgradeEncoding("legacy:password")).isTrue();
+        assertThat(passwordHasher.upgradeEncoding("hashed:password")).isFalse();
+        assertThat(threads).isEmpty();
+    }
+
+    private class RecordingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            threads.add(Thread.currentThread().getName());
+            if ("block".contentEquals(rawPassword)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return encodedPassword.startsWith("legacy:");
+        }
+    }
+}
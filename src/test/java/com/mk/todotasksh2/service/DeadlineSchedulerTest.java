@@ -0,0 +1,162 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskDeadlineView;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.mk.todotasksh2.model.TaskState.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadlineSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 10, 10);
+
+    private static final Set<TaskState> FINAL_STATES = EnumSet.of(DONE, CANCELLED);
+
+    @Mock
+    private TasksRepository tasksRepository;
+
+    @Mock
+    private TaskService taskService;
+
+    private MutableClock clock;
+
+    private DeadlineScheduler deadlineScheduler;
+
+    @BeforeEach
+    void init() {
+        clock = new MutableClock(TODAY);
+        deadlineScheduler = new DeadlineScheduler(tasksRepository, taskService, clock, POSTPONED,
+                Duration.ofDays(7), Duration.ofDays(3));
+    }
+
+    @Test
+    void start_shouldLoadHorizonAndFlagPassedDeadlines() {
+        when(tasksRepository.findDeadlinesAfter(eq(TODAY.minusDays(4)), eq(Long.MAX_VALUE), eq(TODAY.plusDays(7)),
+                eq(FINAL_STATES), any())).thenReturn(List.of(
+                new TaskDeadlineView(1L, TODAY.minusDays(1)),
+                new TaskDeadlineView(2L, TODAY),
+                new TaskDeadlineView(3L, TODAY.plusDays(2))));
+        when(taskService.markOverdue(List.of(1L), TODAY, POSTPONED)).thenReturn(List.of(1L));
+
+        deadlineScheduler.start();
+
+        verify(taskService).markOverdue(List.of(1L), TODAY, POSTPONED);
+        assertThat(deadlineScheduler.tracked()).isEqualTo(2);
+    }
+
+    @Test
+    void start_afterLongOutage_shouldResumeFromLastCompletedCheck() {
+        when(tasksRepository.findLastJobRun(DeadlineScheduler.JOB_NAME)).thenReturn(Optional.of(TODAY.minusDays(10)));
+        when(tasksRepository.findDeadlinesAfter(eq(TODAY.minusDays(11)), eq(Long.MAX_VALUE), eq(TODAY.plusDays(7)),
+                eq(FINAL_STATES), any())).thenReturn(List.of(new TaskDeadlineView(1L, TODAY.minusDays(9))));
+        when(taskService.markOverdue(List.of(1L), TODAY, POSTPONED)).thenReturn(List.of(1L));
+
+        deadlineScheduler.start();
+
+        verify(taskService).markOverdue(List.of(1L), TODAY, POSTPONED);
+        verify(tasksRepository).saveLastJobRun(DeadlineScheduler.JOB_NAME, TODAY);
+    }
+
+    @Test
+    void processOverdue_shouldOnlyLoadNewDayOfHorizon() {
+        when(tasksRepository.findDeadlinesAfter(any(), anyLong(), any(), anyCollection(), any()))
+                .thenReturn(List.of(new TaskDeadlineView(2L, TODAY)))
+                .thenReturn(List.of());
+        deadlineScheduler.start();
+        when(taskService.markOverdue(List.of(2L), TODAY.plusDays(1), POSTPONED)).thenReturn(List.of(2L));
+
+        clock.today = TODAY.plusDays(1);
+        deadlineScheduler.processOverdue();
+
+        verify(taskService).markOverdue(List.of(2L), TODAY.plusDays(1), POSTPONED);
+        verify(tasksRepository).findDeadlinesAfter(eq(TODAY.plusDays(7)), eq(Long.MAX_VALUE), eq(TODAY.plusDays(8)),
+                eq(FINAL_STATES), any());
+        verify(tasksRepository, times(2)).findDeadlinesAfter(any(), anyLong(), any(), anyCollection(), any());
+    }
+
+    @Test
+    void onTaskChange_shouldTrackDeadlinesWithinHorizon() {
+        when(tasksRepository.findDeadlinesAfter(any(), anyLong(), any(), anyCollection(), any()))
+                .thenReturn(List.of());
+        deadlineScheduler.start();
+
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(10L, PLANNED, TODAY.plusDays(1), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(11L, PLANNED, TODAY.plusDays(30), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(12L, PLANNED, TODAY.plusDays(2), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.stateChanged(12L, DONE, null));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(13L, PLANNED, TODAY.plusDays(3), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.deleted(13L, null));
+
+        assertThat(deadlineScheduler.tracked()).isEqualTo(1);
+        verify(taskService, never()).markOverdue(any(), any(), any());
+    }
+
+    @Test
+    void onTaskChange_shouldHandPassedDeadlinesToNextCheck() {
+        when(tasksRepository.findDeadlinesAfter(any(), anyLong(), any(), anyCollection(), any()))
+                .thenReturn(List.of());
+        deadlineScheduler.start();
+        when(taskService.markOverdue(List.of(10L), TODAY.plusDays(1), POSTPONED)).thenReturn(List.of(10L));
+
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(10L, PLANNED, TODAY.minusDays(2), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.updated(11L, DONE, TODAY.minusDays(2), "Task", null));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.created(12L, PLANNED, TODAY.plusDays(2), "Task"));
+        deadlineScheduler.onTaskChange(TaskChangeEvent.updated(12L, CANCELLED, TODAY.plusDays(2), "Task", null));
+        clock.today = TODAY.plusDays(1);
+        deadlineScheduler.processOverdue();
+
+        verify(taskService).markOverdue(List.of(10L), TODAY.plusDays(1), POSTPONED);
+        assertThat(deadlineScheduler.tracked()).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private LocalDate today;
+
+        private MutableClock(LocalDate today) {
+            this.today = today;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return today.atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+    }
+}
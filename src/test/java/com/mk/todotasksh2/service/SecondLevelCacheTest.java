@@ -0,0 +1,127 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.TasksRepository;
+import com.mk.todotasksh2.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.jpa.statistics-enabled=true")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TasksRepository tasksRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("cached-" + System.nanoTime() + "@gmail.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .build());
+        task = tasksRepository.save(Task.builder()
+                .description("cached task")
+                .state(TaskState.PLANNED)
+                .user(user)
+                .build());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tasksRepository.deleteAllById(List.of(task.getId()));
+        userRepository.deleteAllById(List.of(user.getId()));
+    }
+
+    @Test
+    void findById_shouldBeServedFromSecondLevelCache() {
+        transactionTemplate.executeWithoutResult(status -> userService.findById(user.getId()));
+        transactionTemplate.executeWithoutResult(status -> userService.findById(user.getId()));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findPrincipalByUsername_shouldBeServedFromQueryCache() {
+        userService.loadUserByUsername(user.getUsername());
+        userService.loadUserByUsername(user.getUsername());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changeUserRole_shouldEvictCachedUserAndPrincipal() {
+        userService.loadUserByUsername(user.getUsername());
+        transactionTemplate.executeWithoutResult(status -> userService.findById(user.getId()));
+
+        userService.changeUserRole(user.getId(), Role.ADMIN);
+
+        assertThat(userService.loadUserByUsername(user.getUsername()).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ADMIN");
+        Role cachedRole = transactionTemplate.execute(status -> userService.findById(user.getId()).getRole());
+        assertThat(cachedRole).isEqualTo(Role.ADMIN);
+    }
+
+    @Test
+    void deleteUser_shouldNotLeaveCachedTaskPointingToDeletedUser() {
+        Long cachedUserId = transactionTemplate.execute(status ->
+                tasksRepository.findById(task.getId()).orElseThrow().getUser().getId());
+        assertThat(cachedUserId).isEqualTo(user.getId());
+
+        userService.deleteUser(user.getId());
+
+        User taskUser = transactionTemplate.execute(status ->
+                tasksRepository.findById(task.getId()).orElseThrow().getUser());
+        assertThat(taskUser).isNull();
+    }
+
+    @Test
+    void deleteTaskById_shouldKeepUnrelatedCacheRegions() {
+        Task deleted = tasksRepository.save(Task.builder().description("deleted task").state(TaskState.PLANNED).build());
+        transactionTemplate.executeWithoutResult(status -> userService.findById(user.getId()));
+
+        taskService.deleteTaskById(deleted.getId());
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskCreateDto;
+import com.mk.todotasksh2.dto.TaskDeltaDto;
+import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskUpdateDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TaskDeltaSyncTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SyncRevisions syncRevisions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void delta_shouldContainOnlyChangesAfterRevision() {
+        long since = taskService.findTasksChangedSince(-1).revision();
+
+        long edited = taskService.createTask(new TaskCreateDto("Delta edited", LocalDate.now().plusDays(1))).id();
+        long deleted = taskService.createTask(new TaskCreateDto("Delta deleted", LocalDate.now().plusDays(1))).id();
+        long middle = taskService.findTasksChangedSince(-1).revision();
+        taskService.editTask(edited, new TaskUpdateDto("Delta edited again", null));
+        taskService.deleteTaskById(deleted);
+
+        TaskDeltaDto delta = taskService.findTasksChangedSince(middle);
+
+        assertThat(delta.revision()).isGreaterThan(middle);
+        assertThat(delta.changed()).extracting(TaskDto::id).containsExactly(edited);
+        assertThat(delta.deleted()).containsExactly(deleted);
+        assertThat(taskService.findTasksChangedSince(since).changed()).extracting(TaskDto::id).contains(edited)
+                .doesNotContain(deleted);
+        assertThat(taskService.findTasksChangedSince(delta.revision()).changed()).isEmpty();
+    }
+
+    @Test
+    void committedRevision_shouldNotPassUncommittedWrites() {
+        long before = syncRevisions.committed();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long revision = syncRevisions.next();
+
+            assertThat(syncRevisions.next()).isEqualTo(revision);
+            assertThat(syncRevisions.committed()).isEqualTo(revision - 1).isGreaterThanOrEqualTo(before);
+        });
+
+        assertThat(syncRevisions.committed()).isGreaterThan(before);
+    }
+}
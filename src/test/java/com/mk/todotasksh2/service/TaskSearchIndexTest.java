@@ -0,0 +1,73 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskTextView;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.mk.todotasksh2.model.TaskState.PLANNED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSearchIndexTest {
+
+    @Mock
+    private TasksRepository tasksRepository;
+
+    private TaskSearchIndex taskSearchIndex;
+
+    @BeforeEach
+    void init() {
+        taskSearchIndex = new TaskSearchIndex(tasksRepository);
+        when(tasksRepository.findTextsAfter(eq(0L), any())).thenReturn(List.of(
+                new TaskTextView(1L, "Prepare the quarterly report"),
+                new TaskTextView(2L, "Report, report and report again"),
+                new TaskTextView(3L, "Call the plumber about the kitchen"),
+                new TaskTextView(4L, "Reporting dashboard for the kitchen")));
+        taskSearchIndex.rebuild();
+    }
+
+    @Test
+    void search_shouldRankDocumentsContainingAllTerms() {
+        assertThat(taskSearchIndex.search("report", 0, 10)).containsExactly(2L, 1L);
+        assertThat(taskSearchIndex.search("the KITCHEN", 0, 10)).containsExactly(3L, 4L);
+        assertThat(taskSearchIndex.search("report kitchen", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void search_withPrefixTerm_shouldMatchWordsStartingWithIt() {
+        assertThat(taskSearchIndex.search("rep*", 0, 10)).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(taskSearchIndex.search("kitchen rep*", 0, 10)).containsExactly(4L);
+    }
+
+    @Test
+    void search_shouldPaginateRankedResults() {
+        List<Long> all = taskSearchIndex.search("rep*", 0, 10);
+
+        assertThat(taskSearchIndex.search("rep*", 1, 1)).containsExactly(all.get(1));
+        assertThat(taskSearchIndex.search("rep*", 3, 1)).isEmpty();
+        assertThat(taskSearchIndex.search(" - ", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void onTaskChange_shouldUpdateIndexIncrementally() {
+        taskSearchIndex.onTaskChange(TaskChangeEvent.created(5L, PLANNED, LocalDate.now(), "Kitchen renovation"));
+        taskSearchIndex.onTaskChange(TaskChangeEvent.updated(3L, PLANNED, null, "Call the electrician", null));
+        taskSearchIndex.onTaskChange(TaskChangeEvent.deleted(4L, null));
+
+        assertThat(taskSearchIndex.search("kitchen", 0, 10)).containsExactly(5L);
+        assertThat(taskSearchIndex.search("electric*", 0, 10)).containsExactly(3L);
+        assertThat(taskSearchIndex.search("plumber", 0, 10)).isEmpty();
+        assertThat(taskSearchIndex.size()).isEqualTo(4);
+    }
+}
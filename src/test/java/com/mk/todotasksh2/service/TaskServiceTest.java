@@ -1,27 +1,45 @@
 package com.mk.todotasksh2.service;
 
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.BulkItemErrorDto;
+import com.mk.todotasksh2.dto.CursorPage;
+import com.mk.todotasksh2.dto.StateChangeOutcome;
+import com.mk.todotasksh2.dto.TaskChangeEvent;
 import com.mk.todotasksh2.dto.TaskCreateDto;
+import com.mk.todotasksh2.dto.TaskCursor;
+import com.mk.todotasksh2.dto.TaskCursorOrder;
+import com.mk.todotasksh2.dto.TaskDeltaDto;
 import com.mk.todotasksh2.dto.TaskDto;
+import com.mk.todotasksh2.dto.TaskFilter;
+import com.mk.todotasksh2.dto.TaskRevision;
+import com.mk.todotasksh2.dto.TaskStateChangeDto;
+import com.mk.todotasksh2.dto.TaskStateChangeResultDto;
+import com.mk.todotasksh2.dto.TaskStateView;
+import com.mk.todotasksh2.dto.TaskStatsView;
 import com.mk.todotasksh2.dto.TaskUpdateDto;
 import com.mk.todotasksh2.dto.UserDto;
+import com.mk.todotasksh2.exeption.NotChangeStatusException;
 import com.mk.todotasksh2.mapper.TasksMapper;
-import com.mk.todotasksh2.mapper.UsersMapper;
 import com.mk.todotasksh2.model.Role;
 import com.mk.todotasksh2.model.Task;
 import com.mk.todotasksh2.model.TaskState;
 import com.mk.todotasksh2.model.User;
 import com.mk.todotasksh2.repository.TasksRepository;
 import com.mk.todotasksh2.sequrity.AppUserDetails;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -37,8 +55,10 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TaskServiceTest {
-    public static final Task TASK_1 = new Task(1L, "Task 1", LocalDate.now(), PLANNED, new User());
-    public static final Task TASK_2 = new Task(2L, "Task 2", LocalDate.now(), WORK_IN_PROGRESS, new User());
+    public static final Task TASK_1 = Task.builder()
+            .id(1L).description("Task 1").deadline(LocalDate.now()).state(PLANNED).user(new User()).build();
+    public static final Task TASK_2 = Task.builder()
+            .id(2L).description("Task 2").deadline(LocalDate.now()).state(WORK_IN_PROGRESS).user(new User()).build();
     public static final TaskDto TASK_DTO = new TaskDto(1L, "Task 1", LocalDate.now(), PLANNED, new UserDto(1L, "", ""));
     @Mock
     private TasksRepository tasksRepository;
@@ -47,10 +67,25 @@ class TaskServiceTest {
     private TasksMapper tasksMapper;
 
     @Mock
-    private UsersMapper usersMapper;
+    private UserService userService;
 
     @Mock
-    private UserService userService;
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ResourceRevisions resourceRevisions;
+
+    @Mock
+    private SyncRevisions syncRevisions;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
 
     @InjectMocks
     private TaskService taskService;
@@ -61,9 +96,6 @@ class TaskServiceTest {
     @Mock
     private Authentication authentication;
 
-    @Mock
-    private AppUserDetails appUserDetails;
-
 
     @BeforeEach
     void init() {
@@ -74,65 +106,188 @@ class TaskServiceTest {
     @Test
     void findAllTasks_withPagination_shouldReturnPagedTaskDtos() {
         Pageable pageable = PageRequest.of(0, 2);
-        List<Task> tasks = Arrays.asList(TASK_1, TASK_2);
-
-        Page<Task> pagedTasks = new PageImpl<>(tasks, pageable, tasks.size());
         List<TaskDto> taskDtos = Arrays.asList(
                 new TaskDto(1L, "Task 1", LocalDate.now(), PLANNED, new UserDto(1L, "", "")),
                 new TaskDto(2L, "Task 2", LocalDate.now(), WORK_IN_PROGRESS, new UserDto(1L, "", "")));
 
-        when(tasksRepository.findAll(pageable)).thenReturn(pagedTasks);
-        when(tasksMapper.toListTasksDto(tasks)).thenReturn(taskDtos);
+        when(tasksRepository.findAllTaskDtos(pageable)).thenReturn(taskDtos);
 
-        List<TaskDto> result = taskService.findAllTasks(pageable);
+        List<TaskDto> result = taskService.findAllTasks(TaskFilter.NONE, pageable);
 
         assertEquals(2, result.size());
-        verify(tasksRepository, times(1)).findAll(pageable);
-        verify(tasksMapper, times(1)).toListTasksDto(tasks);
+        verify(tasksRepository, times(1)).findAllTaskDtos(pageable);
+        verify(tasksRepository, never()).findAll(any(Pageable.class));
+        verifyNoInteractions(tasksMapper);
+    }
+
+    @Test
+    void findAllTasks_withFilter_shouldUseDynamicQuery() {
+        Pageable pageable = PageRequest.of(0, 2);
+        TaskFilter filter = new TaskFilter(PLANNED, 1L, LocalDate.now(), null, false);
+        when(tasksRepository.findTaskDtos(filter, pageable)).thenReturn(List.of(TASK_DTO));
+
+        List<TaskDto> result = taskService.findAllTasks(filter, pageable);
+
+        assertEquals(List.of(TASK_DTO), result);
+        verify(tasksRepository, never()).findAllTaskDtos(any());
+    }
+
+    @Test
+    void findAllTasks_withContradictoryFilter_shouldThrowBadRequest() {
+        TaskFilter filter = new TaskFilter(null, 1L, null, null, true);
+        Pageable pageable = PageRequest.of(0, 2);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.findAllTasks(filter, pageable));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals("error.tasks.filter.message", exception.getReason());
+        verifyNoInteractions(tasksRepository);
+    }
+
+    @Test
+    void findTasksAfter_withEmptyCursor_shouldReturnFirstSliceAndNextCursor() {
+        Pageable limit = PageRequest.of(0, 2);
+        List<TaskDto> taskDtos = List.of(TASK_DTO,
+                new TaskDto(2L, "Task 2", LocalDate.now(), WORK_IN_PROGRESS, null));
+
+        when(tasksRepository.findSliceByIdAfter(0L, limit)).thenReturn(new SliceImpl<>(taskDtos, limit, true));
+
+        CursorPage<TaskDto> result = taskService.findTasksAfter("", 2, TaskCursorOrder.ID);
+
+        assertEquals(taskDtos, result.content());
+        assertEquals(new TaskCursor(TaskCursorOrder.ID, null, 2L), TaskCursor.decode(result.nextCursor()));
+        verify(tasksRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void findTasksAfter_withDeadlineCursor_onLastSlice_shouldReturnNoNextCursor() {
+        Pageable limit = PageRequest.of(0, 2);
+        LocalDate deadline = LocalDate.of(2024, 10, 10);
+        String after = new TaskCursor(TaskCursorOrder.DEADLINE, deadline, 5L).encode();
+
+        when(tasksRepository.findSliceByDeadlineAfter(deadline, 5L, limit))
+                .thenReturn(new SliceImpl<>(List.of(TASK_DTO), limit, false));
+        when(tasksRepository.findSliceByNullDeadlineAfter(0L, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        CursorPage<TaskDto> result = taskService.findTasksAfter(after, 2, TaskCursorOrder.ID);
+
+        assertEquals(1, result.content().size());
+        assertNull(result.nextCursor());
+        verify(tasksRepository, never()).findSliceByIdAfter(anyLong(), any());
+    }
+
+    @Test
+    void findTasksAfter_byDeadline_shouldPageUndatedTasksAfterDatedOnes() {
+        Pageable limit = PageRequest.of(0, 2);
+        TaskDto undated = new TaskDto(7L, "Task 7", null, PLANNED, null);
+        TaskDto laterUndated = new TaskDto(9L, "Task 9", null, PLANNED, null);
+
+        when(tasksRepository.findSliceOrderByDeadline(limit))
+                .thenReturn(new SliceImpl<>(List.of(TASK_DTO), limit, false));
+        when(tasksRepository.findSliceByNullDeadlineAfter(0L, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(List.of(undated), PageRequest.of(0, 1), true));
+        when(tasksRepository.findSliceByNullDeadlineAfter(7L, limit))
+                .thenReturn(new SliceImpl<>(List.of(laterUndated), limit, false));
+
+        CursorPage<TaskDto> first = taskService.findTasksAfter("", 2, TaskCursorOrder.DEADLINE);
+
+        assertEquals(List.of(TASK_DTO, undated), first.content());
+        assertEquals(new TaskCursor(TaskCursorOrder.DEADLINE, null, 7L), TaskCursor.decode(first.nextCursor()));
+
+        CursorPage<TaskDto> second = taskService.findTasksAfter(first.nextCursor(), 2, TaskCursorOrder.DEADLINE);
+
+        assertEquals(List.of(laterUndated), second.content());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void findTasksAfter_byDeadline_withFullDatedSlice_shouldPointToUndatedTasks() {
+        Pageable limit = PageRequest.of(0, 1);
+
+        when(tasksRepository.findSliceOrderByDeadline(limit))
+                .thenReturn(new SliceImpl<>(List.of(TASK_DTO), limit, false));
+        when(tasksRepository.findSliceByNullDeadlineAfter(0L, limit))
+                .thenReturn(new SliceImpl<>(List.of(new TaskDto(7L, "Task 7", null, PLANNED, null)), limit, false));
+
+        CursorPage<TaskDto> result = taskService.findTasksAfter("", 1, TaskCursorOrder.DEADLINE);
+
+        assertEquals(List.of(TASK_DTO), result.content());
+        assertEquals(new TaskCursor(TaskCursorOrder.DEADLINE, TASK_DTO.deadline(), TASK_DTO.id()),
+                TaskCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void findTasksAfter_withMalformedCursor_shouldThrowBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.findTasksAfter("not a cursor", 2, TaskCursorOrder.ID));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals("error.Cursor.message", exception.getReason());
+        verifyNoInteractions(tasksRepository);
     }
 
     @Test
     void findTaskOwner_shouldReturnUserDto() {
-        User user = new User(1L, "John", "123", Role.USER, Collections.emptyList());
-        Task task = new Task(1L, "Task 1", LocalDate.now(), PLANNED, user);
         UserDto userDto = new UserDto(1L, "John", "ROLE_USER");
 
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(usersMapper.toUserDto(user)).thenReturn(userDto);
+        when(tasksRepository.findPerformerById(1L)).thenReturn(Optional.of(userDto));
 
         UserDto result = taskService.findTaskPerformer(1L);
 
         assertEquals("John", result.username());
-        verify(tasksRepository, times(1)).findById(1L);
-        verify(usersMapper, times(1)).toUserDto(user);
+        verify(tasksRepository, times(1)).findPerformerById(1L);
+        verify(tasksRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void findTaskOwner_whenTaskUnassigned_shouldReturnUnassignedUserDto() {
+        when(tasksRepository.findPerformerById(1L)).thenReturn(Optional.empty());
+        when(tasksRepository.existsById(1L)).thenReturn(true);
+
+        UserDto result = taskService.findTaskPerformer(1L);
+
+        assertEquals("unassigned", result.username());
+        assertNull(result.role());
+    }
+
+    @Test
+    void findTaskOwner_whenTaskNotFound_shouldThrowException() {
+        when(tasksRepository.findPerformerById(1L)).thenReturn(Optional.empty());
+        when(tasksRepository.existsById(1L)).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.findTaskPerformer(1L));
+
+        assertEquals("error.tasks.NotFound.message", exception.getReason());
     }
 
     @Test
     void findTaskById_shouldReturnTaskDto() {
         long taskId = 1L;
 
-        when(tasksRepository.findById(taskId)).thenReturn(Optional.of(TASK_1));
-        when(tasksMapper.toTaskDto(TASK_1)).thenReturn(TASK_DTO);
+        when(tasksRepository.findTaskDtoById(taskId)).thenReturn(Optional.of(TASK_DTO));
 
         TaskDto result = taskService.findTaskById(taskId);
 
         assertNotNull(result);
         assertEquals(TASK_DTO.id(), result.id());
         assertEquals(TASK_DTO.description(), result.description());
-        verify(tasksRepository, times(1)).findById(taskId);
-        verify(tasksMapper, times(1)).toTaskDto(TASK_1);
+        verify(tasksRepository, times(1)).findTaskDtoById(taskId);
+        verify(tasksMapper, times(0)).toTaskDto(any());
     }
 
     @Test
     void findTaskById_whenTaskNotFound_shouldThrowException() {
         long taskId = 1L;
-        when(tasksRepository.findById(taskId)).thenReturn(Optional.empty());
+        when(tasksRepository.findTaskDtoById(taskId)).thenReturn(Optional.empty());
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> taskService.findTaskById(taskId));
 
         assertEquals("404 NOT_FOUND \"error.tasks.NotFound.message\"", exception.getMessage());
-        verify(tasksRepository, times(1)).findById(taskId);
+        verify(tasksRepository, times(1)).findTaskDtoById(taskId);
         verify(tasksMapper, times(0)).toTaskDto(any());
     }
 
@@ -153,26 +308,150 @@ class TaskServiceTest {
         verify(tasksMapper, times(1)).toTaskDto(TASK_1);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createTasks_shouldSaveValidItemsAndReportInvalidOnes() {
+        TaskCreateDto valid = new TaskCreateDto("New Task", LocalDate.now());
+        TaskCreateDto invalid = new TaskCreateDto("", LocalDate.now());
+        Task task = Task.builder().id(10L).description("New Task").state(PLANNED).build();
+        ConstraintViolation<TaskCreateDto> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+
+        when(path.toString()).thenReturn("description");
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("must not be blank");
+        when(validator.validate(valid)).thenReturn(Collections.emptySet());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        when(tasksMapper.taskCreateDtoToTask(valid)).thenReturn(task);
+
+        BulkCreateResultDto result = taskService.createTasks(Arrays.asList(valid, invalid, null));
+
+        assertEquals(List.of(10L), result.createdIds());
+        assertEquals(2, result.errors().size());
+        assertEquals(new BulkItemErrorDto(1, List.of("description: must not be blank")), result.errors().get(0));
+        assertEquals(2, result.errors().get(1).index());
+        verify(tasksRepository, times(1)).saveAll(anyList());
+        verify(tasksRepository, times(1)).flush();
+        verify(entityManager, times(1)).clear();
+        verify(tasksMapper, never()).taskCreateDtoToTask(invalid);
+    }
+
+    @Test
+    void createTasks_whenAllItemsInvalid_shouldNotTouchRepository() {
+        BulkCreateResultDto result = taskService.createTasks(Collections.singletonList(null));
+
+        assertTrue(result.createdIds().isEmpty());
+        assertEquals(0, result.errors().getFirst().index());
+        verifyNoInteractions(tasksRepository, entityManager);
+    }
+
     @Test
     void deleteTaskById_taskExists_deletesTask() {
         long taskId = 1L;
-        when(tasksRepository.existsById(taskId)).thenReturn(true);
+        TaskStatsView previous = new TaskStatsView(taskId, PLANNED, 2L, null);
+        when(tasksRepository.findStatsViewById(taskId)).thenReturn(Optional.of(previous));
+        when(tasksRepository.deleteTaskById(taskId)).thenReturn(1);
+        when(syncRevisions.next()).thenReturn(9L);
 
         taskService.deleteTaskById(taskId);
 
-        verify(tasksRepository).deleteById(taskId);
+        verify(tasksRepository).deleteTaskById(taskId);
+        verify(tasksRepository).saveTombstone(taskId, 9L);
+        verify(tasksRepository, never()).existsById(anyLong());
+        verify(tasksRepository, never()).deleteById(anyLong());
+        verify(resourceRevisions).changed(ResourceRevisions.Resource.TASKS);
+        verify(eventPublisher).publishEvent(TaskChangeEvent.deleted(taskId, previous));
     }
 
     @Test
     void deleteTaskById_taskNotFound_throwsException() {
         long taskId = 1L;
-        when(tasksRepository.existsById(taskId)).thenReturn(false);
+        when(tasksRepository.findStatsViewById(taskId)).thenReturn(Optional.empty());
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> taskService.deleteTaskById(taskId));
 
         assertEquals("error.tasks.NotFound.message", exception.getReason());
-        verify(tasksRepository, never()).deleteById(taskId);
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(tasksRepository, never()).deleteTaskById(anyLong());
+        verifyNoInteractions(resourceRevisions, eventPublisher);
+    }
+
+    @Test
+    void searchTasks_shouldKeepRankingAndSkipDeletedTasks() {
+        TaskDto second = new TaskDto(2L, "Task 2", LocalDate.now(), PLANNED, new UserDto(1L, "", ""));
+        when(taskSearchIndex.search("task", 20, 10)).thenReturn(List.of(2L, 3L, 1L));
+        when(tasksRepository.findTaskDtosByIdIn(List.of(2L, 3L, 1L))).thenReturn(List.of(TASK_DTO, second));
+
+        List<TaskDto> result = taskService.searchTasks("task", 2, 10);
+
+        assertEquals(List.of(second, TASK_DTO), result);
+    }
+
+    @Test
+    void findTasksChangedSince_shouldReturnChangesUpToCommittedRevision() {
+        when(syncRevisions.committed()).thenReturn(12L);
+        when(tasksRepository.findTaskDtosByRevisionBetween(10L, 12L)).thenReturn(List.of(TASK_DTO));
+        when(tasksRepository.findTombstonesByRevisionBetween(10L, 12L)).thenReturn(List.of(4L));
+
+        TaskDeltaDto result = taskService.findTasksChangedSince(10L);
+
+        assertEquals(12L, result.revision());
+        assertEquals(List.of(TASK_DTO), result.changed());
+        assertEquals(List.of(4L), result.deleted());
+    }
+
+    @Test
+    void findTasksChangedSince_whenUpToDate_shouldNotQuery() {
+        when(syncRevisions.committed()).thenReturn(12L);
+
+        TaskDeltaDto result = taskService.findTasksChangedSince(12L);
+
+        assertEquals(12L, result.revision());
+        assertTrue(result.changed().isEmpty());
+        assertTrue(result.deleted().isEmpty());
+        verifyNoInteractions(tasksRepository);
+    }
+
+    @Test
+    void markOverdue_shouldFlagPassedDeadlinesAndMoveAllowedStates() {
+        LocalDate today = LocalDate.of(2024, 10, 10);
+        when(tasksRepository.findStatsViewsByIdIn(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+                new TaskStatsView(1L, PLANNED, 2L, today.minusDays(1)),
+                new TaskStatsView(2L, NOTIFIED, 2L, today.minusDays(1)),
+                new TaskStatsView(3L, PLANNED, null, today),
+                new TaskStatsView(4L, DONE, null, today.minusDays(3))));
+        when(tasksRepository.updateStateByIdIn(List.of(1L), PLANNED, POSTPONED, 0L)).thenReturn(1);
+
+        List<Long> result = taskService.markOverdue(List.of(1L, 2L, 3L, 4L), today, POSTPONED);
+
+        assertEquals(List.of(1L, 2L), result);
+        verify(tasksRepository, times(1)).updateStateByIdIn(anyCollection(), any(), any(), anyLong());
+        verify(eventPublisher).publishEvent(TaskChangeEvent.overdue(1L, today.minusDays(1)));
+        verify(eventPublisher).publishEvent(TaskChangeEvent.overdue(2L, today.minusDays(1)));
+        verify(eventPublisher).publishEvent(TaskChangeEvent.stateChanged(1L, POSTPONED,
+                new TaskStatsView(1L, PLANNED, 2L, today.minusDays(1))));
+        verify(resourceRevisions).changed(ResourceRevisions.Resource.TASKS);
+    }
+
+    @Test
+    void findTaskETag_shouldIncludeAssigneeVersion() {
+        when(tasksRepository.findRevisionById(1L)).thenReturn(Optional.of(new TaskRevision(3L, 2L, 5L)));
+        when(tasksRepository.findRevisionById(2L)).thenReturn(Optional.of(new TaskRevision(4L, null, null)));
+
+        assertEquals("task-3-user-2-5", taskService.findTaskETag(1L));
+        assertEquals("task-4", taskService.findTaskETag(2L));
+    }
+
+    @Test
+    void findTaskETag_whenTaskNotFound_shouldThrowException() {
+        when(tasksRepository.findRevisionById(1L)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.findTaskETag(1L));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(tasksRepository, never()).findTaskDtoById(anyLong());
     }
 
     @Test
@@ -269,8 +548,7 @@ class TaskServiceTest {
         long userId = 2L;
 
         when(tasksRepository.findById(taskId)).thenReturn(Optional.of(TASK_1));
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.USER));
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.USER));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> taskService.assignUserToTask(taskId, userId));
@@ -286,13 +564,14 @@ class TaskServiceTest {
         long userId = 2L;
         var user = createUserWithRole(Role.ADMIN);
         var newUserTasks = new ArrayList<Task>();
-        var newUser = new User(3L, "user_3@mail", "123", Role.USER, newUserTasks);
+        var newUser = User.builder()
+                .id(3L).username("user_3@mail").password("123").role(Role.USER).tasks(newUserTasks).build();
 
-        Task task = new Task(taskId, "Task 1", LocalDate.of(2024, 10, 10), PLANNED, user);
+        Task task = Task.builder()
+                .id(taskId).description("Task 1").deadline(LocalDate.of(2024, 10, 10)).state(PLANNED).user(user).build();
 
         when(tasksRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.ADMIN));
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.ADMIN));
 
 
         when(userService.findById(2L)).thenReturn(newUser);
@@ -308,97 +587,207 @@ class TaskServiceTest {
 
     @Test
     void editState_PlannedToWorkInProgress_shouldReturnUpdatedTaskDto() {
-        TaskState newState = WORK_IN_PROGRESS;
-        Task updatedTask = new Task(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
-        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
-
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.USER));
+        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), WORK_IN_PROGRESS, null);
 
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(TASK_1));
-        when(tasksRepository.save(TASK_1)).thenReturn(updatedTask);
-        when(tasksMapper.toTaskDto(updatedTask)).thenReturn(updatedTaskDto);
+        TaskStatsView previous = new TaskStatsView(1L, PLANNED, 2L, LocalDate.of(2024, 10, 10));
+        when(tasksRepository.findStatsViewById(1L)).thenReturn(Optional.of(previous));
+        when(tasksRepository.updateStateById(1L, Set.of(PLANNED), WORK_IN_PROGRESS, 0L)).thenReturn(1);
+        when(tasksRepository.findTaskDtoById(1L)).thenReturn(Optional.of(updatedTaskDto));
 
         TaskDto result = taskService.changeState(1L, WORK_IN_PROGRESS);
 
-        assertEquals(WORK_IN_PROGRESS, TASK_1.getState());
         assertEquals(WORK_IN_PROGRESS, result.state());
-        verify(tasksRepository, times(1)).findById(1L);
-        verify(tasksRepository, times(1)).save(TASK_1);
-        verify(tasksMapper, times(1)).toTaskDto(updatedTask);
+        verify(tasksRepository, never()).findById(anyLong());
+        verify(tasksRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(TaskChangeEvent.stateChanged(1L, WORK_IN_PROGRESS, previous));
+        verifyNoInteractions(authentication);
     }
 
     @Test
     void editState_WorkInProgressToNotified_shouldReturnUpdatedTaskDto() {
-        Task task = new Task(1L, "Task 1", LocalDate.of(2024, 10, 10), WORK_IN_PROGRESS, null);
-        TaskState newState = NOTIFIED;
-        Task updatedTask = new Task(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
-        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
-
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.ADMIN));
+        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), NOTIFIED, null);
 
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(tasksRepository.save(task)).thenReturn(updatedTask);
-        when(tasksMapper.toTaskDto(updatedTask)).thenReturn(updatedTaskDto);
+        when(tasksRepository.findStatsViewById(1L))
+                .thenReturn(Optional.of(new TaskStatsView(1L, WORK_IN_PROGRESS, null, null)));
+        when(tasksRepository.updateStateById(1L, Set.of(WORK_IN_PROGRESS), NOTIFIED, 0L)).thenReturn(1);
+        when(tasksRepository.findTaskDtoById(1L)).thenReturn(Optional.of(updatedTaskDto));
 
         TaskDto result = taskService.changeState(1L, NOTIFIED);
 
-        assertEquals(NOTIFIED, task.getState());
         assertEquals(NOTIFIED, result.state());
-        verify(tasksRepository, times(1)).findById(1L);
-        verify(tasksRepository, times(1)).save(task);
-        verify(tasksMapper, times(1)).toTaskDto(updatedTask);
+        verify(tasksRepository, times(1)).updateStateById(anyLong(), anyCollection(), any(), anyLong());
     }
 
     @Test
     void editState_NotifiedToDone_shouldReturnUpdatedTaskDto() {
-        Task task = new Task(1L, "Task 1", LocalDate.of(2024, 10, 10), NOTIFIED, null);
-        TaskState newState = DONE;
-        Task updatedTask = new Task(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
-        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), newState, null);
+        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), DONE, null);
 
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.ADMIN));
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.ADMIN));
 
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(tasksRepository.save(task)).thenReturn(updatedTask);
-        when(tasksMapper.toTaskDto(updatedTask)).thenReturn(updatedTaskDto);
+        when(tasksRepository.findStatsViewById(1L)).thenReturn(Optional.of(new TaskStatsView(1L, SIGNED, null, null)));
+        when(tasksRepository.updateStateById(1L, Set.of(SIGNED), DONE, 0L)).thenReturn(1);
+        when(tasksRepository.findTaskDtoById(1L)).thenReturn(Optional.of(updatedTaskDto));
 
         TaskDto result = taskService.changeState(1L, DONE);
 
-        assertEquals(DONE, task.getState());
         assertEquals(DONE, result.state());
-        verify(tasksRepository, times(1)).findById(1L);
-        verify(tasksRepository, times(1)).save(task);
-        verify(tasksMapper, times(1)).toTaskDto(updatedTask);
     }
 
     @Test
-    void editState_invalidTransition_ifNotAdmin_shouldThrowException() {
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(TASK_1));
+    void editState_sameState_shouldReturnTaskWithoutUpdate() {
+        when(tasksRepository.findStatsViewById(1L))
+                .thenReturn(Optional.of(new TaskStatsView(1L, WORK_IN_PROGRESS, null, null)));
+        when(tasksRepository.findTaskDtoById(1L)).thenReturn(Optional.of(
+                new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), WORK_IN_PROGRESS, null)));
 
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.USER));
+        TaskDto result = taskService.changeState(1L, WORK_IN_PROGRESS);
+
+        assertEquals(WORK_IN_PROGRESS, result.state());
+        verify(tasksRepository, never()).updateStateById(anyLong(), anyCollection(), any(), anyLong());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void editState_invalidTransition_shouldThrowNotChangeStatusException() {
+        when(tasksRepository.findStatsViewById(1L)).thenReturn(Optional.of(new TaskStatsView(1L, PLANNED, null, null)));
+
+        NotChangeStatusException exception = assertThrows(NotChangeStatusException.class, () ->
+                taskService.changeState(1L, NOTIFIED));
+
+        assertEquals("error.tasks.State.message", exception.getBundle());
+        verify(tasksRepository, never()).updateStateById(anyLong(), anyCollection(), any(), anyLong());
+        verify(tasksRepository, never()).findTaskDtoById(anyLong());
+    }
+
+    @Test
+    void editState_whenStateChangedConcurrently_shouldRetryUpdate() {
+        TaskDto updatedTaskDto = new TaskDto(1L, "Task 1", LocalDate.of(2024, 10, 10), NOTIFIED, null);
+
+        TaskStatsView concurrent = new TaskStatsView(1L, SIGNED, null, null);
+        when(tasksRepository.findStatsViewById(1L))
+                .thenReturn(Optional.of(new TaskStatsView(1L, WORK_IN_PROGRESS, null, null)))
+                .thenReturn(Optional.of(concurrent));
+        when(tasksRepository.updateStateById(1L, Set.of(WORK_IN_PROGRESS), NOTIFIED, 0L)).thenReturn(0);
+        when(tasksRepository.updateStateById(1L, Set.of(SIGNED), NOTIFIED, 0L)).thenReturn(1);
+        when(tasksRepository.findTaskDtoById(1L)).thenReturn(Optional.of(updatedTaskDto));
+
+        TaskDto result = taskService.changeState(1L, NOTIFIED);
+
+        assertEquals(NOTIFIED, result.state());
+        verify(tasksRepository, times(2)).updateStateById(anyLong(), anyCollection(), any(), anyLong());
+        verify(eventPublisher).publishEvent(TaskChangeEvent.stateChanged(1L, NOTIFIED, concurrent));
+    }
+
+    @Test
+    void editState_taskNotFound_throwsException() {
+        when(tasksRepository.findStatsViewById(1L)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                taskService.changeState(1L, WORK_IN_PROGRESS));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals("error.tasks.NotFound.message", exception.getReason());
+    }
+
+    @Test
+    void editState_invalidTransition_ifNotAdmin_shouldThrowException() {
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.USER));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
                 taskService.changeState(1L, DONE));
 
         assertEquals("error.NotAccessChangeState.message", exception.getReason());
-        verify(tasksRepository, times(1)).findById(1L);
+        verifyNoInteractions(tasksRepository);
     }
 
     @Test
     void whenUserTriesToSetStateToDoneOrCancelled_thenThrowForbidden() {
-        when(authentication.getPrincipal()).thenReturn(appUserDetails);
-        when(appUserDetails.getUser()).thenReturn(createUserWithRole(Role.USER));
-        when(tasksRepository.findById(1L)).thenReturn(Optional.of(TASK_1));
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.USER));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
-                taskService.changeState(1L, DONE));
+                taskService.changeState(1L, CANCELLED));
 
         assertEquals("error.NotAccessChangeState.message", exception.getReason());
-        verify(tasksRepository, times(1)).findById(1L);
+        verify(tasksRepository, never()).updateStateById(anyLong(), anyCollection(), any(), anyLong());
+    }
+
+    @Test
+    void changeStates_shouldGroupValidTransitionsAndReportOutcomePerTask() {
+        List<TaskStateChangeDto> changes = List.of(
+                new TaskStateChangeDto(1L, WORK_IN_PROGRESS),
+                new TaskStateChangeDto(2L, WORK_IN_PROGRESS),
+                new TaskStateChangeDto(3L, NOTIFIED),
+                new TaskStateChangeDto(4L, DONE),
+                new TaskStateChangeDto(5L, PLANNED),
+                new TaskStateChangeDto(6L, CANCELLED),
+                new TaskStateChangeDto(1L, NOTIFIED),
+                new TaskStateChangeDto(7L, PLANNED));
+
+        when(authentication.getPrincipal()).thenReturn(principalWithRole(Role.USER));
+        when(tasksRepository.findStatsViewsByIdIn(anyCollection())).thenReturn(List.of(
+                new TaskStatsView(1L, PLANNED, null, null),
+                new TaskStatsView(2L, PLANNED, null, null),
+                new TaskStatsView(3L, WORK_IN_PROGRESS, 2L, null),
+                new TaskStatsView(4L, NOTIFIED, null, null),
+                new TaskStatsView(5L, PLANNED, null, null),
+                new TaskStatsView(6L, DONE, null, null)));
+        when(tasksRepository.updateStateByIdIn(List.of(1L, 2L), PLANNED, WORK_IN_PROGRESS, 0L)).thenReturn(2);
+        when(tasksRepository.updateStateByIdIn(List.of(3L), WORK_IN_PROGRESS, NOTIFIED, 0L)).thenReturn(1);
+
+        List<TaskStateChangeResultDto> result = taskService.changeStates(changes);
+
+        assertEquals(List.of(
+                StateChangeOutcome.UPDATED,
+                StateChangeOutcome.UPDATED,
+                StateChangeOutcome.UPDATED,
+                StateChangeOutcome.FORBIDDEN,
+                StateChangeOutcome.UNCHANGED,
+                StateChangeOutcome.FORBIDDEN,
+                StateChangeOutcome.DUPLICATE,
+                StateChangeOutcome.NOT_FOUND), result.stream().map(TaskStateChangeResultDto::outcome).toList());
+        assertEquals(WORK_IN_PROGRESS, result.getFirst().state());
+        verify(tasksRepository, times(1)).findStatsViewsByIdIn(anyCollection());
+        verify(tasksRepository, never()).findStatesByIdIn(anyCollection());
+        verify(tasksRepository, times(2)).updateStateByIdIn(anyCollection(), any(), any(), anyLong());
+        verify(eventPublisher).publishEvent(TaskChangeEvent.stateChanged(3L, NOTIFIED,
+                new TaskStatsView(3L, WORK_IN_PROGRESS, 2L, null)));
+        verify(tasksRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void changeStates_invalidTransition_shouldReportAvailableStates() {
+        when(tasksRepository.findStatsViewsByIdIn(anyCollection()))
+                .thenReturn(List.of(new TaskStatsView(1L, NOTIFIED, null, null)));
+
+        List<TaskStateChangeResultDto> result = taskService.changeStates(
+                List.of(new TaskStateChangeDto(1L, PLANNED)));
+
+        assertEquals(StateChangeOutcome.INVALID_TRANSITION, result.getFirst().outcome());
+        assertEquals(Set.of(SIGNED, DONE, CANCELLED), result.getFirst().availableStates());
+        verify(tasksRepository, never()).updateStateByIdIn(anyCollection(), any(), any(), anyLong());
+        verifyNoInteractions(authentication);
+    }
+
+    @Test
+    void changeStates_whenTaskChangedConcurrently_shouldReportConflict() {
+        when(tasksRepository.findStatsViewsByIdIn(anyCollection()))
+                .thenReturn(List.of(new TaskStatsView(1L, PLANNED, null, null),
+                        new TaskStatsView(2L, PLANNED, null, null)));
+        when(tasksRepository.findStatesByIdIn(anyCollection()))
+                .thenReturn(List.of(new TaskStateView(1L, WORK_IN_PROGRESS), new TaskStateView(2L, CANCELLED)));
+        when(tasksRepository.updateStateByIdIn(List.of(1L, 2L), PLANNED, WORK_IN_PROGRESS, 0L)).thenReturn(1);
+
+        List<TaskStateChangeResultDto> result = taskService.changeStates(List.of(
+                new TaskStateChangeDto(1L, WORK_IN_PROGRESS),
+                new TaskStateChangeDto(2L, WORK_IN_PROGRESS)));
+
+        assertEquals(StateChangeOutcome.UPDATED, result.get(0).outcome());
+        assertEquals(StateChangeOutcome.CONFLICT, result.get(1).outcome());
+        assertEquals(CANCELLED, result.get(1).state());
+    }
+
+    private static AppUserDetails principalWithRole(Role role) {
+        return new AppUserDetails(1L, "user@mail", null, role);
     }
 
     private User createUserWithRole(Role role) {
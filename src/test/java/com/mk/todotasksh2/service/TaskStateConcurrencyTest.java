@@ -0,0 +1,84 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.exeption.NotChangeStatusException;
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.repository.TasksRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TaskStateConcurrencyTest {
+
+    private static final int TASKS = 50;
+
+    private static final List<TaskState> RIVAL_STATES = List.of(TaskState.WORK_IN_PROGRESS, TaskState.POSTPONED);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TasksRepository tasksRepository;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        tasksRepository.deleteAllById(createdIds);
+    }
+
+    @Test
+    void concurrentTransitionsFromSameState_shouldApplyExactlyOne() throws Exception {
+        for (int i = 0; i < TASKS; i++) {
+            Task task = Task.builder().description("race " + i).state(TaskState.PLANNED).build();
+            createdIds.add(tasksRepository.save(task).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(RIVAL_STATES.size());
+        try {
+            for (Long id : createdIds) {
+                CyclicBarrier barrier = new CyclicBarrier(RIVAL_STATES.size());
+                List<Future<TaskState>> attempts = new ArrayList<>();
+                for (TaskState state : RIVAL_STATES) {
+                    attempts.add(executor.submit(changeStateAfter(barrier, id, state)));
+                }
+
+                List<TaskState> applied = new ArrayList<>();
+                for (Future<TaskState> attempt : attempts) {
+                    TaskState state = attempt.get();
+                    if (state != null) {
+                        applied.add(state);
+                    }
+                }
+
+                assertThat(applied).hasSize(1);
+                assertThat(tasksRepository.findStateById(id)).contains(applied.getFirst());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<TaskState> changeStateAfter(CyclicBarrier barrier, long id, TaskState state) {
+        return () -> {
+            barrier.await();
+            try {
+                return taskService.changeState(id, state).state();
+            } catch (NotChangeStatusException e) {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskCountView;
+import com.mk.todotasksh2.dto.TaskStatsDto;
+import com.mk.todotasksh2.dto.TaskStatsView;
+import com.mk.todotasksh2.repository.TasksRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static com.mk.todotasksh2.model.TaskState.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStatisticsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 10, 10);
+
+    private static final List<TaskStatsView> TASKS = List.of(
+            new TaskStatsView(1L, PLANNED, 2L, TODAY.minusDays(1)),
+            new TaskStatsView(2L, WORK_IN_PROGRESS, 2L, TODAY),
+            new TaskStatsView(3L, DONE, 3L, TODAY.minusDays(5)),
+            new TaskStatsView(4L, PLANNED, null, null));
+
+    @Mock
+    private TasksRepository tasksRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TaskStatistics taskStatistics;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        taskStatistics = new TaskStatistics(tasksRepository, clock, meterRegistry);
+        when(tasksRepository.countGroupedByState()).thenReturn(List.of(
+                new TaskCountView<>(PLANNED, 2), new TaskCountView<>(WORK_IN_PROGRESS, 1),
+                new TaskCountView<>(DONE, 1)));
+        when(tasksRepository.countGroupedByUser()).thenReturn(List.of(
+                new TaskCountView<>(2L, 2), new TaskCountView<>(3L, 1), new TaskCountView<>(null, 1)));
+        when(tasksRepository.countOpenGroupedByDeadline(any())).thenReturn(List.of(
+                new TaskCountView<>(TODAY.minusDays(1), 1L), new TaskCountView<>(TODAY, 1L)));
+        taskStatistics.rebuild();
+    }
+
+    @Test
+    void rebuild_shouldCountTasksFromGroupedQueries() {
+        TaskStatsDto stats = taskStatistics.getStats();
+
+        assertThat(stats.total()).isEqualTo(4);
+        assertThat(stats.byState()).containsEntry(PLANNED, 2L).containsEntry(WORK_IN_PROGRESS, 1L)
+                .containsEntry(DONE, 1L).containsEntry(CANCELLED, 0L);
+        assertThat(stats.byUser()).isEqualTo(Map.of(2L, 2L, 3L, 1L));
+        assertThat(stats.unassigned()).isEqualTo(1);
+        assertThat(stats.overdue()).isEqualTo(1);
+    }
+
+    @Test
+    void onTaskChange_shouldApplyDeltasWithoutQueries() {
+        taskStatistics.onTaskChange(TaskChangeEvent.created(5L, PLANNED, TODAY.minusDays(2), "Task"));
+        taskStatistics.onTaskChange(TaskChangeEvent.stateChanged(1L, CANCELLED, TASKS.get(0)));
+        taskStatistics.onTaskChange(TaskChangeEvent.assigned(4L, 3L, TASKS.get(3)));
+        taskStatistics.onTaskChange(TaskChangeEvent.unassigned(2L, TASKS.get(1)));
+        taskStatistics.onTaskChange(TaskChangeEvent.deleted(3L, TASKS.get(2)));
+
+        TaskStatsDto stats = taskStatistics.getStats();
+
+        assertThat(stats.total()).isEqualTo(4);
+        assertThat(stats.byState()).containsEntry(PLANNED, 2L).containsEntry(CANCELLED, 1L).containsEntry(DONE, 0L);
+        assertThat(stats.byUser()).isEqualTo(Map.of(2L, 1L, 3L, 1L));
+        assertThat(stats.unassigned()).isEqualTo(2);
+        assertThat(stats.overdue()).isEqualTo(1);
+        verify(tasksRepository, times(1)).countGroupedByState();
+    }
+
+    @Test
+    void onTaskChange_updatedDeadline_shouldMoveOverdueCount() {
+        taskStatistics.onTaskChange(TaskChangeEvent.updated(2L, WORK_IN_PROGRESS, TODAY.minusDays(3), "Task",
+                TASKS.get(1)));
+        taskStatistics.onTaskChange(TaskChangeEvent.updated(1L, PLANNED, TODAY.plusDays(3), "Task", TASKS.get(0)));
+
+        TaskStatsDto stats = taskStatistics.getStats();
+
+        assertThat(stats.total()).isEqualTo(4);
+        assertThat(stats.byState()).containsEntry(PLANNED, 2L).containsEntry(WORK_IN_PROGRESS, 1L);
+        assertThat(stats.overdue()).isEqualTo(1);
+    }
+
+    @Test
+    void onTaskChange_userRemoved_shouldResetUnfinishedTasksFromReleasedCounts() {
+        taskStatistics.onTaskChange(TaskChangeEvent.userRemoved(2L, Map.of(PLANNED, 1L, WORK_IN_PROGRESS, 1L)));
+
+        TaskStatsDto stats = taskStatistics.getStats();
+
+        assertThat(stats.total()).isEqualTo(4);
+        assertThat(stats.byState()).containsEntry(PLANNED, 3L).containsEntry(WORK_IN_PROGRESS, 0L);
+        assertThat(stats.byUser()).isEqualTo(Map.of(3L, 1L));
+        assertThat(stats.unassigned()).isEqualTo(3);
+        assertThat(stats.overdue()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuild_underConstantChanges_shouldStopAfterBoundedAttempts() {
+        when(tasksRepository.countGroupedByState()).thenAnswer(invocation -> {
+            taskStatistics.onTaskChange(TaskChangeEvent.deleted(1L, TASKS.get(0)));
+            return List.of(new TaskCountView<>(PLANNED, 2), new TaskCountView<>(WORK_IN_PROGRESS, 1),
+                    new TaskCountView<>(DONE, 1));
+        });
+
+        taskStatistics.rebuild();
+
+        verify(tasksRepository, times(4)).countGroupedByState();
+        assertThat(taskStatistics.getStats().total()).isEqualTo(4);
+    }
+
+    @Test
+    void reconcile_whenCountersDrifted_shouldReplaceThem() {
+        taskStatistics.onTaskChange(TaskChangeEvent.deleted(3L, TASKS.get(2)));
+
+        taskStatistics.reconcile();
+
+        assertThat(taskStatistics.getStats().total()).isEqualTo(4);
+        assertThat(taskStatistics.getStats().byState()).containsEntry(DONE, 1L);
+        assertThat(meterRegistry.counter("tasks.stats.corrections").count()).isEqualTo(1);
+        verify(tasksRepository, times(2)).countGroupedByState();
+    }
+
+    @Test
+    void reconcile_whenCountersMatch_shouldKeepThem() {
+        taskStatistics.reconcile();
+
+        assertThat(taskStatistics.getStats().total()).isEqualTo(4);
+        assertThat(meterRegistry.counter("tasks.stats.corrections").count()).isZero();
+        verify(tasksRepository, times(2)).countGroupedByState();
+    }
+
+    @Test
+    void reconcile_whenTasksChangeMeanwhile_shouldRetryOnNextRun() {
+        when(tasksRepository.countGroupedByState()).thenAnswer(invocation -> {
+            taskStatistics.onTaskChange(TaskChangeEvent.deleted(4L, TASKS.get(3)));
+            return List.of();
+        });
+
+        taskStatistics.reconcile();
+
+        assertThat(taskStatistics.getStats().total()).isEqualTo(3);
+        assertThat(meterRegistry.counter("tasks.stats.corrections").count()).isZero();
+    }
+}
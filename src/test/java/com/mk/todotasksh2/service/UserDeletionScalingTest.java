@@ -0,0 +1,81 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskStateView;
+import com.mk.todotasksh2.model.Role;
+import com.mk.todotasksh2.model.Task;
+import com.mk.todotasksh2.model.TaskState;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.TasksRepository;
+import com.mk.todotasksh2.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.jpa.statistics-enabled=true")
+class UserDeletionScalingTest {
+
+    private static final List<TaskState> STATES = List.of(TaskState.PLANNED, TaskState.WORK_IN_PROGRESS,
+            TaskState.NOTIFIED, TaskState.DONE, TaskState.CANCELLED);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TasksRepository tasksRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> taskIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        tasksRepository.deleteAllById(taskIds);
+        taskIds.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 5000})
+    void deleteUser_shouldUseConstantStatementsWithoutLoadingTasks(int taskCount) {
+        User user = userRepository.save(User.builder()
+                .username("heavy-" + taskCount + "@gmail.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .build());
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(Task.builder()
+                    .description("task " + i)
+                    .state(STATES.get(i % STATES.size()))
+                    .user(user)
+                    .build());
+        }
+        tasksRepository.saveAll(tasks).forEach(task -> taskIds.add(task.getId()));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        userService.deleteUser(user.getId());
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(userRepository.existsById(user.getId())).isFalse();
+        assertThat(tasksRepository.findStatesByIdIn(taskIds))
+                .extracting(TaskStateView::state)
+                .containsOnly(TaskState.PLANNED, TaskState.DONE, TaskState.CANCELLED);
+    }
+}
@@ -0,0 +1,121 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.BulkCreateResultDto;
+import com.mk.todotasksh2.dto.BulkItemErrorDto;
+import com.mk.todotasksh2.dto.UserCreateDto;
+import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.UserRepository;
+import com.mk.todotasksh2.sequrity.PasswordHasher;
+import jakarta.validation.Validation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserProvisionerTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private UsernameFilter usernameFilter;
+
+    @Captor
+    private ArgumentCaptor<List<User>> saved;
+
+    private UserProvisioner userProvisioner;
+
+    @BeforeEach
+    void init() {
+        userProvisioner = new UserProvisioner(userService, userRepository, passwordHasher, usernameFilter,
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void createUsers_shouldHashOnlyAcceptedUsersAndReportOthersByIndex() {
+        List<UserCreateDto> users = List.of(
+                new UserCreateDto("new-1@gmail.com", "secret1"),
+                new UserCreateDto("not-an-email", "secret2"),
+                new UserCreateDto("taken@gmail.com", "secret3"),
+                new UserCreateDto("new-1@gmail.com", "secret4"),
+                new UserCreateDto("new-2@gmail.com", "secret5"));
+        when(usernameFilter.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingUsernames(List.of("new-1@gmail.com", "taken@gmail.com", "new-2@gmail.com")))
+                .thenReturn(List.of("taken@gmail.com"));
+        when(passwordHasher.encodeAll(List.of("secret1", "secret5"))).thenReturn(List.of("hash1", "hash5"));
+        when(userService.saveUsers(saved.capture())).thenReturn(List.of(101L, 102L));
+
+        BulkCreateResultDto result = userProvisioner.createUsers(users);
+
+        assertThat(result.createdIds()).containsExactly(101L, 102L);
+        assertThat(result.errors()).extracting(BulkItemErrorDto::index).containsExactly(1, 2, 3);
+        assertThat(result.errors().get(1).errors()).containsExactly("username: already exists");
+        assertThat(result.errors().get(2).errors()).containsExactly("username: duplicate in request");
+        assertThat(saved.getValue()).extracting(User::getUsername, User::getPassword)
+                .containsExactly(tuple("new-1@gmail.com", "hash1"),
+                        tuple("new-2@gmail.com", "hash5"));
+    }
+
+    @Test
+    void createUsers_whenUsernameTakenConcurrently_shouldRetryWithoutIt() {
+        List<UserCreateDto> users = List.of(
+                new UserCreateDto("new-1@gmail.com", "secret1"),
+                new UserCreateDto("new-2@gmail.com", "secret2"));
+        when(usernameFilter.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingUsernames(anyList()))
+                .thenReturn(List.of())
+                .thenReturn(List.of("new-2@gmail.com"));
+        when(passwordHasher.encodeAll(List.of("secret1", "secret2"))).thenReturn(List.of("hash1", "hash2"));
+        var violation = new ConstraintViolationException("Unique index or primary key violation",
+                new SQLException("duplicate", "23505"), "PUBLIC.UK_USERS_USERNAME_INDEX_4");
+        when(userService.saveUsers(anyList()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", violation))
+                .thenReturn(List.of(101L));
+
+        BulkCreateResultDto result = userProvisioner.createUsers(users);
+
+        assertThat(result.createdIds()).containsExactly(101L);
+        assertThat(result.errors()).containsExactly(new BulkItemErrorDto(1, List.of("username: already exists")));
+        verify(userService, times(2)).saveUsers(anyList());
+    }
+
+    @Test
+    void createUsers_whenFilterRulesOutUsernames_shouldSkipExistenceLookup() {
+        List<UserCreateDto> users = List.of(
+                new UserCreateDto("new-1@gmail.com", "secret1"),
+                new UserCreateDto("new-2@gmail.com", "secret2"));
+        when(usernameFilter.mightContain(anyString())).thenReturn(false);
+        when(passwordHasher.encodeAll(List.of("secret1", "secret2"))).thenReturn(List.of("hash1", "hash2"));
+        when(userService.saveUsers(anyList())).thenReturn(List.of(101L, 102L));
+
+        BulkCreateResultDto result = userProvisioner.createUsers(users);
+
+        assertThat(result.createdIds()).containsExactly(101L, 102L);
+        assertThat(result.errors()).isEmpty();
+        verify(userRepository, never()).findExistingUsernames(anyList());
+    }
+}
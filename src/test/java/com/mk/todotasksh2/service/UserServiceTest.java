@@ -1,36 +1,53 @@
 package com.mk.todotasksh2.service;
 
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.TaskCountView;
 import com.mk.todotasksh2.dto.UserCreateDto;
 import com.mk.todotasksh2.dto.UserDto;
 import com.mk.todotasksh2.dto.UserTasksDto;
-import com.mk.todotasksh2.mapper.TasksMapper;
 import com.mk.todotasksh2.mapper.UsersMapper;
 import com.mk.todotasksh2.model.Role;
-import com.mk.todotasksh2.model.Task;
 import com.mk.todotasksh2.model.TaskState;
 import com.mk.todotasksh2.model.User;
+import com.mk.todotasksh2.repository.TasksRepository;
 import com.mk.todotasksh2.repository.UserRepository;
+import com.mk.todotasksh2.sequrity.AccessTokenService;
+import com.mk.todotasksh2.sequrity.AppUserDetails;
+import com.mk.todotasksh2.sequrity.AuthenticationCache;
+import com.mk.todotasksh2.util.CursorCodec;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,7 +60,28 @@ class UserServiceTest {
     private UsersMapper usersMapper;
 
     @Mock
-    private TasksMapper tasksMapper;
+    private TasksRepository tasksRepository;
+
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private ResourceRevisions resourceRevisions;
+
+    @Mock
+    private SyncRevisions syncRevisions;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private UsernameFilter usernameFilter;
 
     @InjectMocks
     private UserService userService;
@@ -51,55 +89,69 @@ class UserServiceTest {
     @Test
     void testFindAllUsers_withPagination_shouldReturnPagedUserDtos() {
         Pageable pageable = PageRequest.of(0, 10);
-        var user = new User();
         var userDto = new UserDto(1L, "user1@mail", Role.USER.name());
 
-        when(userRepository.findAll(pageable)).thenReturn(new PageImpl<>(Collections.singletonList(user)));
-        when(usersMapper.toListUserDto(any())).thenReturn(Collections.singletonList(userDto));
+        when(userRepository.findAllUserDtos(pageable)).thenReturn(Collections.singletonList(userDto));
 
         var result = userService.findAllUsers(pageable);
 
         assertThat(result).contains(userDto).hasSize(1);
-        verify(userRepository).findAll(pageable);
-        verify(usersMapper).toListUserDto(any());
+        verify(userRepository).findAllUserDtos(pageable);
+        verifyNoInteractions(usersMapper);
+    }
+
+    @Test
+    void testFindUsersAfter_shouldContinueFromCursorAndReturnNextCursor() {
+        Pageable limit = PageRequest.of(0, 1);
+        var userDto = new UserDto(8L, "user1@mail", Role.USER.name());
+
+        when(userRepository.findSliceByIdAfter(7L, limit)).thenReturn(new SliceImpl<>(List.of(userDto), limit, true));
+
+        var result = userService.findUsersAfter(CursorCodec.encode(7L), 1);
+
+        assertThat(result.content()).containsExactly(userDto);
+        assertThat(result.nextCursor()).isEqualTo(CursorCodec.encode(8L));
     }
 
     @Test
     void testFindUserTasks_withPagination_shouldReturnListUserTaskDtos() {
-        var user = new User();
-        user.setId(1L);
-        var task = new Task();
-        user.setTasks(Collections.singletonList(task));
         var userTasksDto = new UserTasksDto(1L,
                 "task1",
                 LocalDate.now(),
                 TaskState.PLANNED,
                 "user1@mail");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tasksMapper.toListUserTasksDto(any())).thenReturn(Collections.singletonList(userTasksDto));
+        when(tasksRepository.findUserTasksDtosByUserId(1L)).thenReturn(Collections.singletonList(userTasksDto));
 
         var result = userService.findUserTasks(1L);
 
         assertThat(result).contains(userTasksDto).hasSize(1);
-        verify(userRepository).findById(1L);
-        verify(tasksMapper).toListUserTasksDto(any());
+        verify(tasksRepository).findUserTasksDtosByUserId(1L);
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void testFindUserTasks_userNotFound_throwsException() {
+        when(tasksRepository.findUserTasksDtosByUserId(1L)).thenReturn(Collections.emptyList());
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> userService.findUserTasks(1L));
+
+        assertThat(exception.getReason()).isEqualTo("error.users.NotFound.message");
     }
 
     @Test
     void testFindUserById_shouldReturnUserDto() {
-        var user = new User();
-        user.setId(1L);
         var userDto = new UserDto(1L, "user1@mail", Role.USER.name());
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(usersMapper.toUserDto(any())).thenReturn(userDto);
+        when(userRepository.findUserDtoById(1L)).thenReturn(Optional.of(userDto));
 
         var result = userService.findUserById(1L);
 
         assertThat(result).isEqualTo(userDto);
-        verify(userRepository).findById(1L);
-        verify(usersMapper).toUserDto(any());
+        verify(userRepository).findUserDtoById(1L);
+        verifyNoInteractions(usersMapper);
     }
 
     @Test
@@ -108,32 +160,67 @@ class UserServiceTest {
         var user = new User();
         var userDto = new UserDto(1L, "user1@mail", Role.USER.name());
 
-        when(userRepository.findByUsername("user1@mail")).thenReturn(Optional.empty());
         when(usersMapper.userCreateDtoToUser(any())).thenReturn(user);
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
         when(usersMapper.toUserDto(any())).thenReturn(userDto);
 
         var result = userService.createUser(userCreateDto);
 
         assertThat(result).isEqualTo(userDto);
-        verify(userRepository).findByUsername("user1@mail");
+        verify(userRepository, never()).findByUsername(anyString());
         verify(usersMapper).userCreateDtoToUser(userCreateDto);
-        verify(userRepository).save(user);
+        verify(userRepository).saveAndFlush(user);
         verify(usersMapper).toUserDto(user);
     }
 
     @Test
     void testCreate_whenUserAlreadyExists_shouldThrowException() {
         var userCreateDto = new UserCreateDto("username", "password");
+        var violation = new ConstraintViolationException("Unique index or primary key violation",
+                new SQLException("duplicate", "23505"), "PUBLIC.UK_USERS_USERNAME_INDEX_4");
 
-        when(userRepository.findByUsername("username")).thenReturn(Optional.of(new User()));
+        when(usersMapper.userCreateDtoToUser(any())).thenReturn(new User());
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
 
         var exception = assertThrows(ResponseStatusException.class,
                 () -> userService.createUser(userCreateDto));
 
         assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(exception.getReason()).isEqualTo("error.users.Username.message");
-        verify(userRepository).findByUsername("username");
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void testCreate_whenOtherConstraintViolated_shouldRethrow() {
+        var userCreateDto = new UserCreateDto("username", "password");
+        var ex = new DataIntegrityViolationException("NULL not allowed for column \"PASSWORD\"");
+
+        when(usersMapper.userCreateDtoToUser(any())).thenReturn(new User());
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(ex);
+
+        var thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> userService.createUser(userCreateDto));
+
+        assertThat(thrown).isSameAs(ex);
+    }
+
+    @Test
+    void testSaveUsers_shouldFlushAndReturnIdsInOrder() {
+        var first = User.builder().username("first@gmail.com").build();
+        var second = User.builder().username("second@gmail.com").build();
+        when(userRepository.saveAll(List.of(first, second))).thenAnswer(invocation -> {
+            first.setId(7L);
+            second.setId(8L);
+            return List.of(first, second);
+        });
+
+        var result = userService.saveUsers(List.of(first, second));
+
+        assertThat(result).containsExactly(7L, 8L);
+        verify(userRepository).flush();
+        verify(entityManager).clear();
+        verify(resourceRevisions).changed(ResourceRevisions.Resource.USERS);
     }
 
     @Test
@@ -152,46 +239,82 @@ class UserServiceTest {
         verify(userRepository).findById(1L);
         verify(userRepository).save(user);
         verify(usersMapper).toUserDto(user);
+        verify(authenticationCache).evictUser(1L);
+        verify(accessTokenService).revokeUser(1L);
+        verify(resourceRevisions).changed(ResourceRevisions.Resource.USERS, ResourceRevisions.Resource.TASKS);
     }
 
     @Test
     void testDeleteUser() {
-        var user = new User();
-        var task = new Task();
-        task.setState(TaskState.WORK_IN_PROGRESS);
-        user.setTasks(Collections.singletonList(task));
-
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(tasksRepository.countGroupedByStateOfUser(1L)).thenReturn(List.of(
+                new TaskCountView<>(TaskState.PLANNED, 1), new TaskCountView<>(TaskState.WORK_IN_PROGRESS, 2)));
+        when(syncRevisions.next()).thenReturn(7L);
+        when(tasksRepository.releaseTasksOfUser(1L,
+                EnumSet.of(TaskState.PLANNED, TaskState.DONE, TaskState.CANCELLED), TaskState.PLANNED, 7L)).thenReturn(3);
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
 
         userService.deleteUser(1L);
 
-        assertThat(task.getState()).isEqualTo(TaskState.PLANNED);
-        verify(userRepository).findById(1L);
-        verify(userRepository).delete(user);
+        verify(tasksRepository).releaseTasksOfUser(anyLong(), any(), any(), anyLong());
+        verify(userRepository).deleteUserById(1L);
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).delete(any());
+        verify(authenticationCache).evictUser(1L);
+        verify(accessTokenService).revokeUser(1L);
+        verify(resourceRevisions).changed(ResourceRevisions.Resource.USERS, ResourceRevisions.Resource.TASKS);
+        verify(eventPublisher).publishEvent(TaskChangeEvent.userRemoved(1L,
+                Map.of(TaskState.PLANNED, 1L, TaskState.WORK_IN_PROGRESS, 2L)));
+    }
+
+    @Test
+    void testDeleteUser_userNotFound_throwsException() {
+        when(userRepository.deleteUserById(1L)).thenReturn(0);
+
+        var exception = assertThrows(ResponseStatusException.class, () -> userService.deleteUser(1L));
+
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(exception.getReason()).isEqualTo("error.users.NotFound.message");
+        verifyNoInteractions(authenticationCache, accessTokenService, resourceRevisions);
     }
 
     @Test
     void testLoadUserByUsername() {
-        var user = new User();
-        user.setUsername("user1@mail");
+        var principal = new AppUserDetails(1L, "user1@mail", "{bcrypt}hash", Role.USER);
 
-        when(userRepository.findByUsername("user1@mail")).thenReturn(Optional.of(user));
+        when(usernameFilter.mightContain("user1@mail")).thenReturn(true);
+        when(userRepository.findPrincipalByUsername("user1@mail")).thenReturn(Optional.of(principal));
 
         var result = userService.loadUserByUsername("user1@mail");
 
         assertThat(result.getUsername()).isEqualTo("user1@mail");
-        verify(userRepository).findByUsername("user1@mail");
+        assertThat(result.getPassword()).isEqualTo("{bcrypt}hash");
+        assertThat(result.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("USER");
+        verify(userRepository).findPrincipalByUsername("user1@mail");
+        verify(userRepository, never()).findByUsername(anyString());
     }
 
     @Test
     void testLoadUserByUsername_userNotFound_throwsException() {
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+        when(usernameFilter.mightContain("unknownUser")).thenReturn(true);
+        when(userRepository.findPrincipalByUsername(anyString())).thenReturn(Optional.empty());
+
+        var exception = assertThrows(UsernameNotFoundException.class,
+                () -> userService.loadUserByUsername("unknownUser"));
+
+        assertThat(exception.getMessage()).isEqualTo("Failed to retrieve user:unknownUser");
+        verify(userRepository).findPrincipalByUsername("unknownUser");
+        verify(usernameFilter).recordFalsePositive();
+    }
+
+    @Test
+    void testLoadUserByUsername_filterMiss_skipsDatabase() {
+        when(usernameFilter.mightContain("unknownUser")).thenReturn(false);
 
         var exception = assertThrows(UsernameNotFoundException.class,
                 () -> userService.loadUserByUsername("unknownUser"));
 
         assertThat(exception.getMessage()).isEqualTo("Failed to retrieve user:unknownUser");
-        verify(userRepository).findByUsername("unknownUser");
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -206,4 +329,16 @@ class UserServiceTest {
         verify(userRepository).findById(id);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testUpdatePassword_storesUpgradedHash() {
+        var user = User.builder().id(2L).username("user").password("{bcrypt}$2a$10$old").role(Role.USER).build();
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        var userDetails = userService.updatePassword(
+                new AppUserDetails(2L, "user", "{bcrypt}$2a$10$old", Role.USER), "{bcrypt}$2a$12$new");
+
+        assertThat(user.getPassword()).isEqualTo("{bcrypt}$2a$12$new");
+        assertThat(userDetails).isEqualTo(new AppUserDetails(2L, "user", "{bcrypt}$2a$12$new", Role.USER));
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.mk.todotasksh2.service;
+
+import com.mk.todotasksh2.dto.TaskChangeEvent;
+import com.mk.todotasksh2.dto.UserDto;
+import com.mk.todotasksh2.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameFilterTest {
+
+    private static final List<UserDto> USERS = IntStream.rangeClosed(1, 500)
+            .mapToObj(i -> new UserDto(i, "user-" + i + "@gmail.com", "USER"))
+            .toList();
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UsernameFilter usernameFilter;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        usernameFilter = new UsernameFilter(userRepository, meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void mightContain_beforeRebuild_shouldLetEveryLookupThrough() {
+        assertThat(usernameFilter.mightContain("unknown@gmail.com")).isTrue();
+        assertThat(meterRegistry.counter("users.username-filter.skipped").count()).isZero();
+    }
+
+    @Test
+    void rebuild_shouldLoadUsersInBatchesWithoutFalseNegatives() {
+        when(userRepository.findSliceByIdAfter(eq(0L), any()))
+                .thenReturn(new SliceImpl<>(USERS.subList(0, 250), PageRequest.of(0, 250), true));
+        when(userRepository.findSliceByIdAfter(eq(250L), any()))
+                .thenReturn(new SliceImpl<>(USERS.subList(250, 500), PageRequest.of(0, 250), false));
+
+        usernameFilter.rebuild();
+
+        assertThat(USERS).allMatch(user -> usernameFilter.mightContain(user.username()));
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> usernameFilter.mightContain("stranger-" + i + "@gmail.com"))
+                .count();
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(meterRegistry.counter("users.username-filter.skipped").count())
+                .isEqualTo(10_000 - falsePositives);
+        assertThat(meterRegistry.get("users.username-filter.size").gauge().value()).isEqualTo(500);
+        assertThat(meterRegistry.get("users.username-filter.false-positive-rate").gauge().value())
+                .isBetween(0.0, 0.01);
+    }
+
+    @Test
+    void add_shouldMakeNewUsernameVisible() {
+        when(userRepository.findSliceByIdAfter(anyLong(), any())).thenReturn(new SliceImpl<>(List.of()));
+        usernameFilter.rebuild();
+
+        usernameFilter.add("new@gmail.com");
+
+        assertThat(usernameFilter.mightContain("new@gmail.com")).isTrue();
+        assertThat(meterRegistry.get("users.username-filter.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_afterUserRemoved_shouldRebuildWithoutDeletedUsername() {
+        when(userRepository.findSliceByIdAfter(anyLong(), any()))
+                .thenReturn(new SliceImpl<>(List.of(new UserDto(1L, "gone@gmail.com", "USER"))))
+                .thenReturn(new SliceImpl<>(List.of()));
+        usernameFilter.rebuild();
+        usernameFilter.reconcile();
+        verify(userRepository, times(1)).findSliceByIdAfter(anyLong(), any());
+
+        usernameFilter.onTaskChange(TaskChangeEvent.userRemoved(1L, Map.of()));
+        usernameFilter.reconcile();
+
+        verify(userRepository, times(2)).findSliceByIdAfter(anyLong(), any());
+        assertThat(usernameFilter.mightContain("gone@gmail.com")).isFalse();
+    }
+}
@@ -0,0 +1,48 @@
+package com.mk.todotasksh2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordReaderTest {
+
+    @Test
+    void nextCsv_shouldSplitQuotedFieldsAndTrackRecordLines() throws IOException {
+        RecordReader reader = new RecordReader(new StringReader(
+                "a,\"b, \"\"quoted\"\"\",c\r\n\"multi\nline\",x\nlast"), 100);
+
+        assertThat(reader.nextCsv()).containsExactly("a", "b, \"quoted\"", "c");
+        assertThat(reader.recordLine()).isEqualTo(1);
+        assertThat(reader.nextCsv()).containsExactly("multi\nline", "x");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.nextCsv()).containsExactly("last");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.nextCsv()).isNull();
+    }
+
+    @Test
+    void nextCsv_whenRecordTooLong_shouldSkipItAndContinue() throws IOException {
+        RecordReader reader = new RecordReader(new StringReader("0123456789,\"long\nvalue\"\nok,1\n"), 8);
+
+        assertThrows(RecordReader.MalformedRecordException.class, reader::nextCsv);
+        assertThat(reader.nextCsv()).isEqualTo(List.of("ok", "1"));
+        assertThat(reader.recordLine()).isEqualTo(3);
+    }
+
+    @Test
+    void nextLine_whenLineTooLong_shouldSkipItAndContinue() throws IOException {
+        RecordReader reader = new RecordReader(new StringReader("{\"a\":1}\n{\"description\":\"too long\"}\n\n{}"), 10);
+
+        assertThat(reader.nextLine()).isEqualTo("{\"a\":1}");
+        assertThrows(RecordReader.MalformedRecordException.class, reader::nextLine);
+        assertThat(reader.nextLine()).isEmpty();
+        assertThat(reader.nextLine()).isEqualTo("{}");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.nextLine()).isNull();
+    }
+}